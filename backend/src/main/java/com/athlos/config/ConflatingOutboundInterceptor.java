@@ -0,0 +1,148 @@
+package com.athlos.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-session backpressure on the client outbound channel. Frames queued for each session are
+ * counted; once a session has {@code websocket.outbound.per-session-queue-limit} frames waiting,
+ * MESSAGE frames on the {@code websocket.outbound.conflate-destinations}, which always carry a
+ * full state, are conflated: a new frame is not queued while one for the same session and
+ * destination is still waiting, and the waiting frame delivers the newest state instead. Every
+ * other frame (CONNECTED, RECEIPT, ERROR, leaderboard deltas, nearby updates) is always delivered;
+ * a session that still falls behind is closed by the transport's send buffer and time limits.
+ */
+@Component
+public class ConflatingOutboundInterceptor implements ExecutorChannelInterceptor {
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher(".");
+    // Frames queued per session and not yet handled
+    private final Map<String, AtomicInteger> backlog = new ConcurrentHashMap<>();
+    // Per session and destination: the frame waiting in the queue and the newest state it should carry
+    private final Map<String, Pending> conflating = new ConcurrentHashMap<>();
+    private final AtomicLong conflated = new AtomicLong();
+
+    @Value("${websocket.outbound.conflate-destinations:}")
+    private List<String> conflateDestinations;
+
+    @Value("${websocket.outbound.per-session-queue-limit:100}")
+    private int perSessionQueueLimit;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId == null) {
+            return message;
+        }
+        AtomicInteger queued = backlog.computeIfAbsent(sessionId, id -> new AtomicInteger());
+        String key = conflationKey(message, sessionId);
+        if (key != null && queued.get() >= perSessionQueueLimit) {
+            boolean[] absorbed = {false};
+            conflating.compute(key, (k, pending) -> {
+                if (pending == null) {
+                    return new Pending(message, message);
+                }
+                absorbed[0] = true;
+                return new Pending(pending.queued, message);
+            });
+            if (absorbed[0]) {
+                // The frame already waiting for this destination will carry this state
+                conflated.incrementAndGet();
+                return null;
+            }
+        }
+        queued.incrementAndGet();
+        return message;
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        String key = sessionId != null ? conflationKey(message, sessionId) : null;
+        if (key == null) {
+            return message;
+        }
+        Message<?>[] deliver = {message};
+        conflating.computeIfPresent(key, (k, pending) -> {
+            if (pending.queued != message) {
+                return pending;
+            }
+            deliver[0] = pending.newest;
+            return null;
+        });
+        return deliver[0];
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId != null) {
+            backlog.computeIfPresent(sessionId, (id, queued) -> queued.decrementAndGet() > 0 ? queued : null);
+        }
+    }
+
+    public long getConflatedCount() {
+        return conflated.get();
+    }
+
+    public int getPendingCount() {
+        return conflating.size();
+    }
+
+    public int getMaxSessionBacklog() {
+        int max = 0;
+        for (AtomicInteger queued : backlog.values()) {
+            max = Math.max(max, queued.get());
+        }
+        return max;
+    }
+
+    // Frames still queued when a session goes away are never handled, so its state is cleared here
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        String prefix = event.getSessionId() + "|";
+        backlog.remove(event.getSessionId());
+        conflating.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    private String conflationKey(Message<?> message, String sessionId) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return null;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null) {
+            return null;
+        }
+        for (String pattern : conflateDestinations) {
+            if (pathMatcher.match(pattern, destination)) {
+                return sessionId + "|" + destination;
+            }
+        }
+        return null;
+    }
+
+    private static final class Pending {
+        private final Message<?> queued;
+        private final Message<?> newest;
+
+        private Pending(Message<?> queued, Message<?> newest) {
+            this.queued = queued;
+            this.newest = newest;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.athlos.config;
+
+import com.athlos.entity.User;
+import com.athlos.repository.RunRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Hit ratios of the second-level cache regions as {@code athlos.cache.hit.ratio}. The raw hit,
+ * miss and put counts per region are published by Hibernate itself under {@code hibernate.*}.
+ */
+@Component
+public class HibernateCacheMetrics {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PostConstruct
+    public void register() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        registerRatio(User.CACHE_REGION, () -> statistics.getDomainDataRegionStatistics(User.CACHE_REGION));
+        registerRatio(RunRepository.ACTIVE_RUN_CACHE_REGION,
+                () -> statistics.getQueryRegionStatistics(RunRepository.ACTIVE_RUN_CACHE_REGION));
+    }
+
+    private void registerRatio(String region, Supplier<CacheRegionStatistics> regionStatistics) {
+        Gauge.builder("athlos.cache.hit.ratio", () -> hitRatio(regionStatistics.get()))
+                .tag("region", region)
+                .description("Share of second-level cache lookups answered from the cache")
+                .register(meterRegistry);
+    }
+
+    // NaN until the region has been looked up at least once
+    private static double hitRatio(CacheRegionStatistics statistics) {
+        if (statistics == null) {
+            return Double.NaN;
+        }
+        long lookups = statistics.getHitCount() + statistics.getMissCount();
+        return lookups == 0 ? Double.NaN : (double) statistics.getHitCount() / lookups;
+    }
+}
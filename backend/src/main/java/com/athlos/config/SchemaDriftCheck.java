@@ -0,0 +1,72 @@
+package com.athlos.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fails startup when the migrated schema lacks indexes the queries depend on. Columns and types
+ * are checked by Hibernate itself ({@code ddl-auto: validate}); indexes are not, so a schema that
+ * was changed by hand would otherwise only show up as slow queries.
+ */
+@Component
+public class SchemaDriftCheck implements ApplicationRunner {
+
+    // Index name -> table, as created by the migrations in db/migration
+    private static final Map<String, String> REQUIRED_INDEXES = Map.of(
+            "idx_runs_user_start", "runs",
+            "idx_runs_user_active", "runs",
+            "idx_runs_compaction_due", "runs",
+            "idx_run_points_run_id", "run_points",
+            "idx_territories_user_active", "territories",
+            "idx_territories_polygon", "territories",
+            "idx_users_current_location", "users",
+            "idx_users_name_trgm", "users",
+            "idx_users_email_trgm", "users");
+
+    private static final String FIND_INDEXES_SQL =
+            "SELECT tablename || '.' || indexname FROM pg_indexes WHERE schemaname = current_schema()";
+
+    // The unique constraint on users.email may carry a name generated by ddl-auto
+    private static final String EMAIL_UNIQUE_SQL =
+            "SELECT COUNT(*) FROM pg_index i " +
+            "JOIN pg_attribute a ON a.attrelid = i.indrelid AND a.attnum = i.indkey[0] " +
+            "WHERE i.indrelid = 'users'::regclass AND i.indisunique AND i.indnatts = 1 AND a.attname = 'email'";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${schema.drift-check.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        Set<String> present = new HashSet<>(jdbcTemplate.queryForList(FIND_INDEXES_SQL, String.class));
+        List<String> missing = new ArrayList<>();
+        REQUIRED_INDEXES.forEach((index, table) -> {
+            if (!present.contains(table + "." + index)) {
+                missing.add(table + "." + index);
+            }
+        });
+        Integer emailUnique = jdbcTemplate.queryForObject(EMAIL_UNIQUE_SQL, Integer.class);
+        if (emailUnique == null || emailUnique == 0) {
+            missing.add("users.(unique email)");
+        }
+        if (!missing.isEmpty()) {
+            missing.sort(null);
+            throw new IllegalStateException("Database schema has drifted from the migrations, missing indexes: " + missing);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.athlos.config;
+
+/**
+ * STOMP destinations published by the server. Segments are separated by dots rather than slashes
+ * because RabbitMQ's STOMP adapter, used in relay mode, only accepts a single segment after
+ * {@code /topic/}; the same names are used with the simple broker so clients work with either.
+ */
+public final class StompDestinations {
+
+    public static final String TOPIC_PREFIX = "/topic/";
+
+    private StompDestinations() {
+    }
+
+    public static String leaderboardDeltas(String period) {
+        return TOPIC_PREFIX + "leaderboard." + period + ".deltas";
+    }
+
+    public static String nearby(String geohash) {
+        return TOPIC_PREFIX + "nearby." + geohash;
+    }
+}
@@ -0,0 +1,63 @@
+package com.athlos.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+
+import javax.sql.DataSource;
+
+/**
+ * The {@code virtual-threads} profile: requests and scheduled tasks run on virtual threads
+ * (see application-virtual-threads.yml), and database access is capped by
+ * {@link ConcurrencyLimitedDataSource} since request concurrency is no longer bounded by a
+ * thread pool. Needs a Java 21 runtime; on older runtimes Spring keeps platform threads.
+ */
+@Configuration
+@Profile("virtual-threads")
+public class VirtualThreadsConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadsConfig.class);
+
+    @Bean
+    public static BeanPostProcessor concurrencyLimitedDataSourcePostProcessor(
+            @Value("${datasource.concurrency.max:20}") int maxConcurrency,
+            @Value("${datasource.concurrency.acquire-timeout-ms:5000}") long acquireTimeoutMs,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource) || bean instanceof ConcurrencyLimitedDataSource) {
+                    return bean;
+                }
+                ConcurrencyLimitedDataSource limited =
+                        new ConcurrencyLimitedDataSource((DataSource) bean, maxConcurrency, acquireTimeoutMs);
+                meterRegistry.ifAvailable(registry -> {
+                    Gauge.builder("athlos.datasource.permits.in-use", limited, ConcurrencyLimitedDataSource::getInUse)
+                            .description("Connections checked out under the concurrency limit")
+                            .register(registry);
+                    Gauge.builder("athlos.datasource.permits.waiting", limited, ConcurrencyLimitedDataSource::getWaiting)
+                            .description("Callers waiting for a database permit")
+                            .register(registry);
+                });
+                return limited;
+            }
+        };
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warnWithoutVirtualThreads() {
+        if (Runtime.version().feature() < 21) {
+            logger.warn("virtual-threads profile is active but the runtime is Java {}; requests stay on platform threads",
+                    Runtime.version().feature());
+        }
+    }
+}
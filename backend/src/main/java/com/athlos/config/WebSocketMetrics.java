@@ -0,0 +1,86 @@
+package com.athlos.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Micrometer meters for STOMP fan-out: outbound queue depth, frames sent on the publishing thread
+ * because the outbound queue was full, frames conflated by {@link ConflatingOutboundInterceptor},
+ * and sessions closed for exceeding the per-session send buffer or send time limit.
+ */
+@Component
+public class WebSocketMetrics implements MeterBinder {
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private ConflatingOutboundInterceptor conflatingOutboundInterceptor;
+
+    private final AtomicLong overflowFrames = new AtomicLong();
+    // Resolved once the broker beans exist; meters read zero until then
+    private volatile ThreadPoolTaskExecutor outboundExecutor;
+    private volatile SubProtocolWebSocketHandler subProtocolHandler;
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void resolveBrokerBeans() {
+        outboundExecutor = applicationContext.getBean("clientOutboundChannelExecutor", ThreadPoolTaskExecutor.class);
+        WebSocketHandler handler = applicationContext.getBean("subProtocolWebSocketHandler", WebSocketHandler.class);
+        WebSocketHandler unwrapped = WebSocketHandlerDecorator.unwrap(handler);
+        if (unwrapped instanceof SubProtocolWebSocketHandler) {
+            subProtocolHandler = (SubProtocolWebSocketHandler) unwrapped;
+        }
+    }
+
+    void recordOverflowFrame() {
+        overflowFrames.incrementAndGet();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("athlos.websocket.outbound.queue.depth", this, WebSocketMetrics::outboundQueueDepth)
+                .description("Frames waiting on the client outbound channel")
+                .register(registry);
+        Gauge.builder("athlos.websocket.outbound.conflation.pending", conflatingOutboundInterceptor,
+                        ConflatingOutboundInterceptor::getPendingCount)
+                .description("Session destinations whose queued frame is being conflated")
+                .register(registry);
+        FunctionCounter.builder("athlos.websocket.outbound.overflow", overflowFrames, AtomicLong::get)
+                .description("Frames sent on the publishing thread because the client outbound queue was full")
+                .register(registry);
+        Gauge.builder("athlos.websocket.outbound.session.backlog.max", conflatingOutboundInterceptor,
+                        ConflatingOutboundInterceptor::getMaxSessionBacklog)
+                .description("Most frames queued for any one session")
+                .register(registry);
+        FunctionCounter.builder("athlos.websocket.outbound.conflated", conflatingOutboundInterceptor,
+                        ConflatingOutboundInterceptor::getConflatedCount)
+                .description("Frames skipped because a newer frame for the same destination was queued")
+                .register(registry);
+        Gauge.builder("athlos.websocket.sessions", this,
+                        metrics -> metrics.subProtocolHandler != null ? metrics.subProtocolHandler.getStats().getWebSocketSessions() : 0)
+                .description("Open WebSocket sessions")
+                .register(registry);
+        FunctionCounter.builder("athlos.websocket.sessions.limit.exceeded", this,
+                        metrics -> metrics.subProtocolHandler != null ? metrics.subProtocolHandler.getStats().getLimitExceededSessions() : 0)
+                .description("Sessions closed for exceeding the send buffer or send time limit")
+                .register(registry);
+    }
+
+    private double outboundQueueDepth() {
+        ThreadPoolTaskExecutor executor = outboundExecutor;
+        return executor != null ? executor.getQueueSize() : 0;
+    }
+}
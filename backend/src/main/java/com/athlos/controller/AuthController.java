@@ -1,9 +1,13 @@
 package com.athlos.controller;
 
 import com.athlos.dto.UserDTO;
+import com.athlos.service.LoginThrottledException;
 import com.athlos.service.UserService;
 import com.athlos.util.JwtUtil;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -24,8 +28,15 @@ public class AuthController {
     private JwtUtil jwtUtil;
 
     @PostMapping("/login")
-    public ResponseEntity<Map<String, Object>> login(@RequestBody LoginRequest request) {
-        Optional<UserDTO> userOpt = userService.authenticateUser(request.getEmail(), request.getPassword());
+    public ResponseEntity<Map<String, Object>> login(@RequestBody LoginRequest request, HttpServletRequest httpRequest) {
+        Optional<UserDTO> userOpt;
+        try {
+            userOpt = userService.authenticateUser(request.getEmail(), request.getPassword(), httpRequest.getRemoteAddr());
+        } catch (LoginThrottledException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .build();
+        }
         if (userOpt.isEmpty()) {
             return ResponseEntity.status(401).build();
         }
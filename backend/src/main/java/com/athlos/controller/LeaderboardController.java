@@ -1,12 +1,14 @@
 package com.athlos.controller;
 
 import com.athlos.dto.LeaderboardEntryDTO;
+import com.athlos.service.LeaderboardPeriod;
 import com.athlos.service.LeaderboardService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/leaderboard")
@@ -33,5 +35,14 @@ public class LeaderboardController {
         List<LeaderboardEntryDTO> leaderboard = leaderboardService.getAllTimeLeaderboard();
         return ResponseEntity.ok(leaderboard);
     }
+    
+    @GetMapping("/{period}/user/{userId}")
+    public ResponseEntity<LeaderboardEntryDTO> getUserStanding(@PathVariable String period, @PathVariable Long userId) {
+        Optional<LeaderboardPeriod> leaderboardPeriod = LeaderboardPeriod.fromPath(period);
+        if (leaderboardPeriod.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<LeaderboardEntryDTO> entry = leaderboardService.getUserStanding(leaderboardPeriod.get(), userId);
+        return entry.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    }
 }
-
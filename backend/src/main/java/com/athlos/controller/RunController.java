@@ -1,8 +1,16 @@
 package com.athlos.controller;
 
 import com.athlos.dto.RunDTO;
+import com.athlos.dto.RunPageDTO;
+import com.athlos.dto.RunPathDTO;
+import com.athlos.dto.RunPointBatchAckDTO;
+import com.athlos.dto.RunPointDTO;
+import com.athlos.service.IngestionSaturatedException;
+import com.athlos.service.PathFormat;
 import com.athlos.service.RunService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -28,9 +36,11 @@ public class RunController {
     }
     
     @PostMapping("/{runId}/pause")
-    public ResponseEntity<RunDTO> pauseRun(@PathVariable Long runId) {
+    public ResponseEntity<RunDTO> pauseRun(@PathVariable Long runId,
+                                          @RequestParam(required = false) String pathFormat,
+                                          @RequestHeader(value = "Accept", required = false) String accept) {
         try {
-            RunDTO run = runService.pauseRun(runId);
+            RunDTO run = runService.pauseRun(runId, PathFormat.resolve(pathFormat, accept));
             return ResponseEntity.ok(run);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -38,9 +48,11 @@ public class RunController {
     }
     
     @PostMapping("/{runId}/resume")
-    public ResponseEntity<RunDTO> resumeRun(@PathVariable Long runId) {
+    public ResponseEntity<RunDTO> resumeRun(@PathVariable Long runId,
+                                          @RequestParam(required = false) String pathFormat,
+                                          @RequestHeader(value = "Accept", required = false) String accept) {
         try {
-            RunDTO run = runService.resumeRun(runId);
+            RunDTO run = runService.resumeRun(runId, PathFormat.resolve(pathFormat, accept));
             return ResponseEntity.ok(run);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -48,9 +60,11 @@ public class RunController {
     }
     
     @PostMapping("/{runId}/end")
-    public ResponseEntity<RunDTO> endRun(@PathVariable Long runId) {
+    public ResponseEntity<RunDTO> endRun(@PathVariable Long runId,
+                                          @RequestParam(required = false) String pathFormat,
+                                          @RequestHeader(value = "Accept", required = false) String accept) {
         try {
-            RunDTO run = runService.endRun(runId);
+            RunDTO run = runService.endRun(runId, PathFormat.resolve(pathFormat, accept));
             return ResponseEntity.ok(run);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -58,29 +72,80 @@ public class RunController {
     }
     
     @PostMapping("/{runId}/point")
-    public ResponseEntity<RunDTO> addRunPoint(@PathVariable Long runId, @RequestBody RunPointRequest request) {
+    public ResponseEntity<RunPointBatchAckDTO> addRunPoint(@PathVariable Long runId, @RequestBody RunPointRequest request) {
         try {
-            RunDTO run = runService.addRunPoint(runId, request.getLatitude(), request.getLongitude(), request.getStepCount());
-            return ResponseEntity.ok(run);
+            RunPointBatchAckDTO ack = runService.addRunPoint(runId, request.getLatitude(), request.getLongitude(), request.getStepCount());
+            return ResponseEntity.accepted().body(ack);
+        } catch (IngestionSaturatedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @PostMapping("/{runId}/points")
+    public ResponseEntity<RunPointBatchAckDTO> addRunPoints(@PathVariable Long runId, @RequestBody List<RunPointDTO> points) {
+        try {
+            RunPointBatchAckDTO ack = runService.addRunPoints(runId, points);
+            return ResponseEntity.accepted().body(ack);
+        } catch (IngestionSaturatedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
     
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<RunDTO>> getUserRuns(@PathVariable Long userId) {
+    public ResponseEntity<RunPageDTO> getUserRuns(@PathVariable Long userId,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(defaultValue = "20") int limit) {
+        if (limit < 1 || limit > 100) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            RunPageDTO page = runService.getUserRuns(userId, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/{runId}/path")
+    public ResponseEntity<RunPathDTO> getRunPath(@PathVariable Long runId,
+                                                 @RequestParam(required = false) String pathFormat,
+                                                 @RequestParam(required = false) Integer maxPoints,
+                                                 @RequestHeader(value = "Accept", required = false) String accept) {
+        if (maxPoints != null && maxPoints < 2) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            RunPathDTO path = runService.getRunPath(runId, PathFormat.resolve(pathFormat, accept), maxPoints);
+            return ResponseEntity.ok(path);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/{runId}/points")
+    public ResponseEntity<List<RunPointDTO>> getRunPoints(@PathVariable Long runId) {
         try {
-            List<RunDTO> runs = runService.getUserRuns(userId);
-            return ResponseEntity.ok(runs);
+            List<RunPointDTO> points = runService.getRunPoints(runId);
+            return ResponseEntity.ok(points);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
     
     @GetMapping("/user/{userId}/active")
-    public ResponseEntity<RunDTO> getActiveRun(@PathVariable Long userId) {
+    public ResponseEntity<RunDTO> getActiveRun(@PathVariable Long userId,
+                                               @RequestParam(required = false) String pathFormat,
+                                               @RequestHeader(value = "Accept", required = false) String accept) {
         try {
-            Optional<RunDTO> run = runService.getActiveRun(userId);
+            Optional<RunDTO> run = runService.getActiveRun(userId, PathFormat.resolve(pathFormat, accept));
             return run.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -1,12 +1,19 @@
 package com.athlos.controller;
 
+import com.athlos.dto.TerritoryDTO;
 import com.athlos.entity.Territory;
 import com.athlos.repository.TerritoryRepository;
+import com.athlos.service.TerritoryService;
+import com.athlos.service.TerritoryTileService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/territories")
@@ -16,11 +23,61 @@ public class TerritoryController {
     @Autowired
     private TerritoryRepository territoryRepository;
 
+    @Autowired
+    private TerritoryService territoryService;
+
+    @Autowired
+    private TerritoryTileService territoryTileService;
+
+    // Larger areas are served as vector tiles instead
+    @Value("${territories.bbox.max-span-degrees:1.0}")
+    private double maxBboxSpanDegrees;
+
     @GetMapping("/active")
     public ResponseEntity<List<Territory>> getActiveTerritories() {
         List<Territory> list = territoryRepository.findByIsActiveTrue();
         return ResponseEntity.ok(list);
     }
-}
 
+    // bbox=minLon,minLat,maxLon,maxLat
+    @GetMapping
+    public ResponseEntity<List<TerritoryDTO>> getTerritoriesInViewport(@RequestParam String bbox) {
+        String[] parts = bbox.split(",");
+        if (parts.length != 4) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            double minLon = Double.parseDouble(parts[0].trim());
+            double minLat = Double.parseDouble(parts[1].trim());
+            double maxLon = Double.parseDouble(parts[2].trim());
+            double maxLat = Double.parseDouble(parts[3].trim());
+            if (!validBbox(minLon, minLat, maxLon, maxLat)) {
+                return ResponseEntity.badRequest().build();
+            }
+            return ResponseEntity.ok(territoryService.getActiveTerritoriesInBoundingBox(minLon, minLat, maxLon, maxLat));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping(value = "/tiles/{z}/{x}/{y}", produces = "application/vnd.mapbox-vector-tile")
+    public ResponseEntity<byte[]> getTerritoryTile(@PathVariable int z, @PathVariable int x, @PathVariable int y) {
+        try {
+            byte[] tile = territoryTileService.getTile(z, x, y);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("application/vnd.mapbox-vector-tile"))
+                    .cacheControl(CacheControl.maxAge(30, TimeUnit.SECONDS))
+                    .body(tile);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 
+    // On the globe, not inverted or empty, and no wider or taller than the configured span;
+    // written so that NaN fails every comparison
+    private boolean validBbox(double minLon, double minLat, double maxLon, double maxLat) {
+        return minLon >= -180 && maxLon <= 180 && minLat >= -90 && maxLat <= 90
+                && minLon < maxLon && minLat < maxLat
+                && maxLon - minLon <= maxBboxSpanDegrees && maxLat - minLat <= maxBboxSpanDegrees;
+    }
+}
@@ -1,8 +1,13 @@
 package com.athlos.controller;
 
+import com.athlos.dto.NearbyRunnerDTO;
 import com.athlos.dto.UserDTO;
+import com.athlos.dto.UserSearchPageDTO;
+import com.athlos.service.LoginThrottledException;
 import com.athlos.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
@@ -23,15 +28,25 @@ public class UserController {
         try {
             UserDTO user = userService.createUser(request.getEmail(), request.getPassword(), request.getName());
             return ResponseEntity.ok(user);
+        } catch (LoginThrottledException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
     
     @PostMapping("/login")
-    public ResponseEntity<UserDTO> login(@RequestBody UserLoginRequest request) {
-        Optional<UserDTO> user = userService.authenticateUser(request.getEmail(), request.getPassword());
-        return user.map(ResponseEntity::ok).orElse(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+    public ResponseEntity<UserDTO> login(@RequestBody UserLoginRequest request, HttpServletRequest httpRequest) {
+        try {
+            Optional<UserDTO> user = userService.authenticateUser(request.getEmail(), request.getPassword(), httpRequest.getRemoteAddr());
+            return user.map(ResponseEntity::ok).orElse(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+        } catch (LoginThrottledException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .build();
+        }
     }
     
     @GetMapping("/{id}")
@@ -60,10 +75,30 @@ public class UserController {
         }
     }
     
+    @GetMapping("/nearby")
+    public ResponseEntity<List<NearbyRunnerDTO>> getNearbyRunners(@RequestParam double lat,
+                                                                  @RequestParam double lon,
+                                                                  @RequestParam(defaultValue = "10") int k,
+                                                                  @RequestParam(defaultValue = "5000") double radius) {
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180 || k < 1 || k > 100 || radius <= 0 || radius > 50000) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(userService.findNearbyRunners(lat, lon, k, radius));
+    }
+    
     @GetMapping("/search")
-    public ResponseEntity<List<UserDTO>> searchUsers(@RequestParam String q) {
-        List<UserDTO> users = userService.searchUsers(q);
-        return ResponseEntity.ok(users);
+    public ResponseEntity<UserSearchPageDTO> searchUsers(@RequestParam String q,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(defaultValue = "20") int limit) {
+        if (limit < 1 || limit > 50) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            UserSearchPageDTO page = userService.searchUsers(q, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     @GetMapping
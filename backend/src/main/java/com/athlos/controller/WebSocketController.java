@@ -1,36 +1,35 @@
 package com.athlos.controller;
 
-import com.athlos.dto.LeaderboardEntryDTO;
-import com.athlos.service.LeaderboardService;
+import com.athlos.dto.LeaderboardSnapshotDTO;
+import com.athlos.dto.NearbyCellUpdateDTO;
+import com.athlos.service.LeaderboardPeriod;
+import com.athlos.service.LeaderboardPublisher;
+import com.athlos.service.LiveLocationService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.stereotype.Controller;
 
-import java.util.List;
-
 @Controller
 public class WebSocketController {
-    
+
     @Autowired
-    private LeaderboardService leaderboardService;
-    
-    @MessageMapping("/leaderboard/daily")
-    @SendTo("/topic/leaderboard/daily")
-    public List<LeaderboardEntryDTO> getDailyLeaderboard() {
-        return leaderboardService.getDailyLeaderboard();
-    }
-    
-    @MessageMapping("/leaderboard/weekly")
-    @SendTo("/topic/leaderboard/weekly")
-    public List<LeaderboardEntryDTO> getWeeklyLeaderboard() {
-        return leaderboardService.getWeeklyLeaderboard();
+    private LeaderboardPublisher leaderboardPublisher;
+
+    @Autowired
+    private LiveLocationService liveLocationService;
+
+    // Subscribing to /app/leaderboard.{period} answers the subscriber alone with the current snapshot
+    @SubscribeMapping("leaderboard.{period}")
+    public LeaderboardSnapshotDTO subscribeLeaderboard(@DestinationVariable String period) {
+        return leaderboardPublisher.getSnapshot(LeaderboardPeriod.fromPath(period)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown leaderboard period: " + period)));
     }
-    
-    @MessageMapping("/leaderboard/all-time")
-    @SendTo("/topic/leaderboard/all-time")
-    public List<LeaderboardEntryDTO> getAllTimeLeaderboard() {
-        return leaderboardService.getAllTimeLeaderboard();
+
+    // Subscribing to /app/nearby.{geohash5} answers with the runners currently in that cell;
+    // /topic/nearby.{geohash5} then carries the changes
+    @SubscribeMapping("nearby.{geohash}")
+    public NearbyCellUpdateDTO subscribeNearby(@DestinationVariable String geohash) {
+        return liveLocationService.snapshotOfCell(geohash);
     }
 }
-
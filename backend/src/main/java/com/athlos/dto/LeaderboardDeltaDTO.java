@@ -0,0 +1,39 @@
+package com.athlos.dto;
+
+import java.util.List;
+
+public class LeaderboardDeltaDTO {
+    private String period;
+    private Long baseVersion;
+    private Long version;
+    private List<LeaderboardEntryDTO> upserts;
+    private List<Long> removedUserIds;
+    
+    // Constructors
+    public LeaderboardDeltaDTO() {}
+    
+    public LeaderboardDeltaDTO(String period, Long baseVersion, Long version,
+                               List<LeaderboardEntryDTO> upserts, List<Long> removedUserIds) {
+        this.period = period;
+        this.baseVersion = baseVersion;
+        this.version = version;
+        this.upserts = upserts;
+        this.removedUserIds = removedUserIds;
+    }
+    
+    // Getters and Setters
+    public String getPeriod() { return period; }
+    public void setPeriod(String period) { this.period = period; }
+    
+    public Long getBaseVersion() { return baseVersion; }
+    public void setBaseVersion(Long baseVersion) { this.baseVersion = baseVersion; }
+    
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+    
+    public List<LeaderboardEntryDTO> getUpserts() { return upserts; }
+    public void setUpserts(List<LeaderboardEntryDTO> upserts) { this.upserts = upserts; }
+    
+    public List<Long> getRemovedUserIds() { return removedUserIds; }
+    public void setRemovedUserIds(List<Long> removedUserIds) { this.removedUserIds = removedUserIds; }
+}
@@ -0,0 +1,28 @@
+package com.athlos.dto;
+
+import java.util.List;
+
+public class LeaderboardSnapshotDTO {
+    private String period;
+    private Long version;
+    private List<LeaderboardEntryDTO> entries;
+    
+    // Constructors
+    public LeaderboardSnapshotDTO() {}
+    
+    public LeaderboardSnapshotDTO(String period, Long version, List<LeaderboardEntryDTO> entries) {
+        this.period = period;
+        this.version = version;
+        this.entries = entries;
+    }
+    
+    // Getters and Setters
+    public String getPeriod() { return period; }
+    public void setPeriod(String period) { this.period = period; }
+    
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+    
+    public List<LeaderboardEntryDTO> getEntries() { return entries; }
+    public void setEntries(List<LeaderboardEntryDTO> entries) { this.entries = entries; }
+}
@@ -0,0 +1,28 @@
+package com.athlos.dto;
+
+import java.util.List;
+
+public class NearbyCellUpdateDTO {
+    private String geohash;
+    private List<NearbyRunnerDTO> runners;
+    private List<Long> departedUserIds;
+    
+    // Constructors
+    public NearbyCellUpdateDTO() {}
+    
+    public NearbyCellUpdateDTO(String geohash, List<NearbyRunnerDTO> runners, List<Long> departedUserIds) {
+        this.geohash = geohash;
+        this.runners = runners;
+        this.departedUserIds = departedUserIds;
+    }
+    
+    // Getters and Setters
+    public String getGeohash() { return geohash; }
+    public void setGeohash(String geohash) { this.geohash = geohash; }
+    
+    public List<NearbyRunnerDTO> getRunners() { return runners; }
+    public void setRunners(List<NearbyRunnerDTO> runners) { this.runners = runners; }
+    
+    public List<Long> getDepartedUserIds() { return departedUserIds; }
+    public void setDepartedUserIds(List<Long> departedUserIds) { this.departedUserIds = departedUserIds; }
+}
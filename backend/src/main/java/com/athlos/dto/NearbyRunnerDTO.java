@@ -0,0 +1,37 @@
+package com.athlos.dto;
+
+import java.time.LocalDateTime;
+
+public class NearbyRunnerDTO {
+    private Long userId;
+    private Double latitude;
+    private Double longitude;
+    private LocalDateTime updatedAt;
+    private Double distanceMeters;
+    
+    // Constructors
+    public NearbyRunnerDTO() {}
+    
+    public NearbyRunnerDTO(Long userId, Double latitude, Double longitude, LocalDateTime updatedAt) {
+        this.userId = userId;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.updatedAt = updatedAt;
+    }
+    
+    // Getters and Setters
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+    
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    
+    public Double getDistanceMeters() { return distanceMeters; }
+    public void setDistanceMeters(Double distanceMeters) { this.distanceMeters = distanceMeters; }
+}
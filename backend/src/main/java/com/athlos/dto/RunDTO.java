@@ -11,8 +11,11 @@ public class RunDTO {
     private Long durationSeconds;
     private Integer totalSteps;
     private Double distanceMeters;
+    private Double paceSecondsPerKm;
     private List<PointDTO> path;
     private List<PointDTO> claimedTerritory;
+    private String pathPolyline;
+    private String claimedTerritoryPolyline;
     private Boolean isActive;
     
     // Constructors
@@ -40,12 +43,21 @@ public class RunDTO {
     public Double getDistanceMeters() { return distanceMeters; }
     public void setDistanceMeters(Double distanceMeters) { this.distanceMeters = distanceMeters; }
     
+    public Double getPaceSecondsPerKm() { return paceSecondsPerKm; }
+    public void setPaceSecondsPerKm(Double paceSecondsPerKm) { this.paceSecondsPerKm = paceSecondsPerKm; }
+    
     public List<PointDTO> getPath() { return path; }
     public void setPath(List<PointDTO> path) { this.path = path; }
     
     public List<PointDTO> getClaimedTerritory() { return claimedTerritory; }
     public void setClaimedTerritory(List<PointDTO> claimedTerritory) { this.claimedTerritory = claimedTerritory; }
     
+    public String getPathPolyline() { return pathPolyline; }
+    public void setPathPolyline(String pathPolyline) { this.pathPolyline = pathPolyline; }
+    
+    public String getClaimedTerritoryPolyline() { return claimedTerritoryPolyline; }
+    public void setClaimedTerritoryPolyline(String claimedTerritoryPolyline) { this.claimedTerritoryPolyline = claimedTerritoryPolyline; }
+    
     public Boolean getIsActive() { return isActive; }
     public void setIsActive(Boolean isActive) { this.isActive = isActive; }
 }
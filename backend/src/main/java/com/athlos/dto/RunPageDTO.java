@@ -0,0 +1,23 @@
+package com.athlos.dto;
+
+import java.util.List;
+
+public class RunPageDTO {
+    private List<RunSummaryDTO> runs;
+    private String nextCursor;
+    
+    // Constructors
+    public RunPageDTO() {}
+    
+    public RunPageDTO(List<RunSummaryDTO> runs, String nextCursor) {
+        this.runs = runs;
+        this.nextCursor = nextCursor;
+    }
+    
+    // Getters and Setters
+    public List<RunSummaryDTO> getRuns() { return runs; }
+    public void setRuns(List<RunSummaryDTO> runs) { this.runs = runs; }
+    
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
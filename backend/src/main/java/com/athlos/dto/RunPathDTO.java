@@ -0,0 +1,34 @@
+package com.athlos.dto;
+
+import java.util.List;
+
+public class RunPathDTO {
+    private Long runId;
+    private String format;
+    private Integer totalPoints;
+    private Integer returnedPoints;
+    private List<PointDTO> points;
+    private String polyline;
+    
+    // Constructors
+    public RunPathDTO() {}
+    
+    // Getters and Setters
+    public Long getRunId() { return runId; }
+    public void setRunId(Long runId) { this.runId = runId; }
+    
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+    
+    public Integer getTotalPoints() { return totalPoints; }
+    public void setTotalPoints(Integer totalPoints) { this.totalPoints = totalPoints; }
+    
+    public Integer getReturnedPoints() { return returnedPoints; }
+    public void setReturnedPoints(Integer returnedPoints) { this.returnedPoints = returnedPoints; }
+    
+    public List<PointDTO> getPoints() { return points; }
+    public void setPoints(List<PointDTO> points) { this.points = points; }
+    
+    public String getPolyline() { return polyline; }
+    public void setPolyline(String polyline) { this.polyline = polyline; }
+}
@@ -0,0 +1,31 @@
+package com.athlos.dto;
+
+public class RunPointBatchAckDTO {
+    private Long runId;
+    private Integer accepted;
+    private Integer totalSteps;
+    private Double distanceMeters;
+    
+    // Constructors
+    public RunPointBatchAckDTO() {}
+    
+    public RunPointBatchAckDTO(Long runId, Integer accepted, Integer totalSteps, Double distanceMeters) {
+        this.runId = runId;
+        this.accepted = accepted;
+        this.totalSteps = totalSteps;
+        this.distanceMeters = distanceMeters;
+    }
+    
+    // Getters and Setters
+    public Long getRunId() { return runId; }
+    public void setRunId(Long runId) { this.runId = runId; }
+    
+    public Integer getAccepted() { return accepted; }
+    public void setAccepted(Integer accepted) { this.accepted = accepted; }
+    
+    public Integer getTotalSteps() { return totalSteps; }
+    public void setTotalSteps(Integer totalSteps) { this.totalSteps = totalSteps; }
+    
+    public Double getDistanceMeters() { return distanceMeters; }
+    public void setDistanceMeters(Double distanceMeters) { this.distanceMeters = distanceMeters; }
+}
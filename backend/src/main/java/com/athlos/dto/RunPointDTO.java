@@ -0,0 +1,33 @@
+package com.athlos.dto;
+
+import java.time.LocalDateTime;
+
+public class RunPointDTO {
+    private Double latitude;
+    private Double longitude;
+    private Integer stepCount;
+    private LocalDateTime timestamp;
+    
+    // Constructors
+    public RunPointDTO() {}
+    
+    public RunPointDTO(Double latitude, Double longitude, Integer stepCount, LocalDateTime timestamp) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.stepCount = stepCount;
+        this.timestamp = timestamp;
+    }
+    
+    // Getters and Setters
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+    
+    public Integer getStepCount() { return stepCount; }
+    public void setStepCount(Integer stepCount) { this.stepCount = stepCount; }
+    
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
+}
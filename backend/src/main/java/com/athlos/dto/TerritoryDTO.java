@@ -0,0 +1,31 @@
+package com.athlos.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class TerritoryDTO {
+    private Long id;
+    private Long userId;
+    private List<PointDTO> polygon;
+    private Double areaSquareMeters;
+    private LocalDateTime claimedAt;
+    
+    // Constructors
+    public TerritoryDTO() {}
+    
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    
+    public List<PointDTO> getPolygon() { return polygon; }
+    public void setPolygon(List<PointDTO> polygon) { this.polygon = polygon; }
+    
+    public Double getAreaSquareMeters() { return areaSquareMeters; }
+    public void setAreaSquareMeters(Double areaSquareMeters) { this.areaSquareMeters = areaSquareMeters; }
+    
+    public LocalDateTime getClaimedAt() { return claimedAt; }
+    public void setClaimedAt(LocalDateTime claimedAt) { this.claimedAt = claimedAt; }
+}
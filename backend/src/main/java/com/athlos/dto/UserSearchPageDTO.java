@@ -0,0 +1,23 @@
+package com.athlos.dto;
+
+import java.util.List;
+
+public class UserSearchPageDTO {
+    private List<UserDTO> users;
+    private String nextCursor;
+    
+    // Constructors
+    public UserSearchPageDTO() {}
+    
+    public UserSearchPageDTO(List<UserDTO> users, String nextCursor) {
+        this.users = users;
+        this.nextCursor = nextCursor;
+    }
+    
+    // Getters and Setters
+    public List<UserDTO> getUsers() { return users; }
+    public void setUsers(List<UserDTO> users) { this.users = users; }
+    
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
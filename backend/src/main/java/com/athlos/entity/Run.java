@@ -1,6 +1,7 @@
 package com.athlos.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.PartitionKey;
 import org.locationtech.jts.geom.LineString;
 import org.locationtech.jts.geom.Polygon;
 import java.time.LocalDateTime;
@@ -17,6 +18,8 @@ public class Run {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
     
+    // runs is partitioned by month of start_time; updates and deletes by id also filter on it
+    @PartitionKey
     @Column(name = "start_time")
     private LocalDateTime startTime;
     
@@ -1,13 +1,21 @@
 package com.athlos.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.locationtech.jts.geom.Point;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
 @Table(name = "users")
+// Second-level cached by id; users.current_location is also written by UserLocationBatchRepository,
+// which evicts the entries it touches
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
 public class User {
+    public static final String CACHE_REGION = "users";
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -0,0 +1,10 @@
+package com.athlos.repository;
+
+public interface LeaderboardRow {
+    Long getUserId();
+    String getName();
+    Long getTotalSteps();
+    Double getTotalDistance();
+    Long getTerritoriesClaimed();
+    Long getLeaderboardRank();
+}
@@ -0,0 +1,11 @@
+package com.athlos.repository;
+
+import java.time.LocalDateTime;
+
+public interface NearbyUserRow {
+    Long getUserId();
+    Double getLatitude();
+    Double getLongitude();
+    LocalDateTime getUpdatedAt();
+    Double getDistanceMeters();
+}
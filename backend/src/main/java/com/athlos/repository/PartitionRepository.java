@@ -0,0 +1,34 @@
+package com.athlos.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+// Calls the partition helpers installed by the V2 and V6 migrations
+@Repository
+public class PartitionRepository {
+    
+    private static final String CREATE_MONTHLY_SQL = "SELECT create_monthly_partitions(?, ?, ?)";
+    
+    private static final String DRAIN_DEFAULT_SQL = "SELECT drain_default_partition(?)";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    // Returns how many partitions were created; months that already have one are left alone, and
+    // rows of a new month that sit in the default partition are moved into it
+    public int createMonthlyPartitions(String table, LocalDate fromMonth, LocalDate toMonth) {
+        Integer created = jdbcTemplate.queryForObject(CREATE_MONTHLY_SQL, Integer.class,
+                table, Date.valueOf(fromMonth), Date.valueOf(toMonth));
+        return created != null ? created : 0;
+    }
+    
+    // Creates a partition for every month with rows in the default partition and moves them there
+    public int drainDefaultPartition(String table) {
+        Integer created = jdbcTemplate.queryForObject(DRAIN_DEFAULT_SQL, Integer.class, table);
+        return created != null ? created : 0;
+    }
+}
@@ -0,0 +1,113 @@
+package com.athlos.repository;
+
+import com.athlos.entity.RunPoint;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Moves the points of finished runs between run_points rows and the compacted blob on runs
+@Repository
+public class RunPointArchiveRepository {
+
+    private static final String FIND_COMPACTABLE_SQL =
+            "SELECT r.id, r.start_time FROM runs r WHERE r.is_active = false AND r.compacted_at IS NULL AND r.end_time < ? " +
+            "ORDER BY r.end_time LIMIT ?"; // served by idx_runs_compaction_due
+
+    private static final String LOCK_COMPACTED_SQL =
+            "SELECT compacted_points FROM runs WHERE id = ? AND start_time = ? FOR UPDATE";
+
+    private static final String FIND_COMPACTED_SQL =
+            "SELECT compacted_points FROM runs WHERE id = ?";
+
+    private static final String FIND_ROWS_SQL =
+            "SELECT p.id, ST_X(p.location) AS lon, ST_Y(p.location) AS lat, p.timestamp, p.step_count, p.speed_mps, " +
+            "pg_column_size(p.*) AS row_bytes FROM run_points p WHERE p.run_id = ? ORDER BY p.timestamp, p.id";
+
+    private static final String STORE_COMPACTED_SQL =
+            "UPDATE runs SET compacted_points = ? WHERE id = ? AND start_time = ?";
+
+    private static final String MARK_COMPACTED_SQL =
+            "UPDATE runs SET compacted_at = now() WHERE id = ? AND start_time = ?";
+
+    private static final String DELETE_ROWS_SQL =
+            "DELETE FROM run_points WHERE run_id = ? AND id <= ? AND timestamp BETWEEN ? AND ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final GeometryFactory geometryFactory = new GeometryFactory();
+
+    // Run ids to their start times, oldest ended first; the writes below take both so that only
+    // the run's monthly partition is searched
+    public Map<Long, LocalDateTime> findCompactable(LocalDateTime endedBefore, int limit) {
+        Map<Long, LocalDateTime> runs = new LinkedHashMap<>();
+        jdbcTemplate.query(FIND_COMPACTABLE_SQL, rs -> {
+            runs.put(rs.getLong("id"), rs.getTimestamp("start_time").toLocalDateTime());
+        }, Timestamp.valueOf(endedBefore), limit);
+        return runs;
+    }
+
+    // Must run inside a transaction; holds the run's row lock until it ends
+    public byte[] lockCompacted(Long runId, LocalDateTime startTime) {
+        List<byte[]> rows = jdbcTemplate.query(LOCK_COMPACTED_SQL, (rs, i) -> rs.getBytes(1),
+                runId, Timestamp.valueOf(startTime));
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    public byte[] findCompacted(Long runId) {
+        List<byte[]> rows = jdbcTemplate.query(FIND_COMPACTED_SQL, (rs, i) -> rs.getBytes(1), runId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    public PointRows findRows(Long runId) {
+        PointRows result = new PointRows();
+        jdbcTemplate.query(FIND_ROWS_SQL, rs -> {
+            RunPoint point = new RunPoint(null,
+                    geometryFactory.createPoint(new Coordinate(rs.getDouble("lon"), rs.getDouble("lat"))),
+                    rs.getTimestamp("timestamp").toLocalDateTime());
+            point.setId(rs.getLong("id"));
+            point.setStepCount((Integer) rs.getObject("step_count"));
+            point.setSpeedMps((Double) rs.getObject("speed_mps"));
+            result.points.add(point);
+            result.maxId = Math.max(result.maxId, point.getId());
+            result.bytes += rs.getLong("row_bytes");
+        }, runId);
+        return result;
+    }
+
+    public void storeCompacted(Long runId, LocalDateTime startTime, byte[] compacted) {
+        jdbcTemplate.update(STORE_COMPACTED_SQL, compacted, runId, Timestamp.valueOf(startTime));
+    }
+
+    public void markCompacted(Long runId, LocalDateTime startTime) {
+        jdbcTemplate.update(MARK_COMPACTED_SQL, runId, Timestamp.valueOf(startTime));
+    }
+
+    // Rows inserted after findRows (e.g. a resumed run) have higher ids and are kept; the
+    // timestamp range of the rows read limits the delete to their monthly partitions
+    public int deleteRows(Long runId, PointRows rows) {
+        List<RunPoint> points = rows.getPoints();
+        return jdbcTemplate.update(DELETE_ROWS_SQL, runId, rows.getMaxId(),
+                Timestamp.valueOf(points.get(0).getTimestamp()),
+                Timestamp.valueOf(points.get(points.size() - 1).getTimestamp()));
+    }
+
+    public static class PointRows {
+        private final List<RunPoint> points = new ArrayList<>();
+        private long maxId;
+        private long bytes;
+
+        public List<RunPoint> getPoints() { return points; }
+        public long getMaxId() { return maxId; }
+        public long getBytes() { return bytes; }
+    }
+}
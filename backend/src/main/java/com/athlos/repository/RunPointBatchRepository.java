@@ -0,0 +1,53 @@
+package com.athlos.repository;
+
+import com.athlos.entity.RunPoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+// Inserts run points as one JDBC batch instead of one persist per point through the Run aggregate
+@Repository
+public class RunPointBatchRepository {
+    
+    private static final String INSERT_SQL =
+            "INSERT INTO run_points (run_id, location, timestamp, step_count, speed_mps) " +
+            "VALUES (?, ST_SetSRID(ST_MakePoint(?, ?), 4326), ?, ?, ?)";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    public void insertAll(Long runId, List<RunPoint> points) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                RunPoint point = points.get(i);
+                ps.setLong(1, runId);
+                ps.setDouble(2, point.getLocation().getX()); // x=lon
+                ps.setDouble(3, point.getLocation().getY()); // y=lat
+                ps.setTimestamp(4, Timestamp.valueOf(point.getTimestamp()));
+                if (point.getStepCount() != null) {
+                    ps.setInt(5, point.getStepCount());
+                } else {
+                    ps.setNull(5, Types.INTEGER);
+                }
+                if (point.getSpeedMps() != null) {
+                    ps.setDouble(6, point.getSpeedMps());
+                } else {
+                    ps.setNull(6, Types.DOUBLE);
+                }
+            }
+            
+            @Override
+            public int getBatchSize() {
+                return points.size();
+            }
+        });
+    }
+}
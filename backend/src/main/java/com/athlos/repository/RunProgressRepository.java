@@ -0,0 +1,38 @@
+package com.athlos.repository;
+
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.io.WKBWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+
+// Writes the live progress of a run without loading the Run entity first
+@Repository
+public class RunProgressRepository {
+    
+    private static final String UPDATE_SQL =
+            "UPDATE runs SET total_steps = ?, distance_meters = ?, path = ST_GeomFromWKB(?, 4326), " +
+            "compacted_at = NULL WHERE id = ? AND start_time = ?"; // new rows in run_points need another compaction pass
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    // The start time is the partition key, so only the run's monthly partition is searched
+    public void updateProgress(Long runId, LocalDateTime startTime, int totalSteps, double distanceMeters, LineString path) {
+        jdbcTemplate.update(UPDATE_SQL, ps -> {
+            ps.setInt(1, totalSteps);
+            ps.setDouble(2, distanceMeters);
+            if (path != null) {
+                ps.setBytes(3, new WKBWriter().write(path));
+            } else {
+                ps.setNull(3, Types.BINARY);
+            }
+            ps.setLong(4, runId);
+            ps.setTimestamp(5, Timestamp.valueOf(startTime));
+        });
+    }
+}
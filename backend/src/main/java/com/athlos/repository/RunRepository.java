@@ -2,8 +2,12 @@ package com.athlos.repository;
 
 import com.athlos.entity.Run;
 import com.athlos.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -15,6 +19,15 @@ import java.util.Optional;
 public interface RunRepository extends JpaRepository<Run, Long> {
     List<Run> findByUserOrderByStartTimeDesc(User user);
     
+    // Results are query cached. Hibernate drops them whenever it writes to runs; the totals and path
+    // written behind by ActiveRunRegistry are served from the live session instead, and the region is
+    // evicted when a session is closed
+    String ACTIVE_RUN_CACHE_REGION = "active-runs";
+    
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = ACTIVE_RUN_CACHE_REGION)
+    })
     Optional<Run> findByUserAndIsActiveTrue(User user);
     
     @Query("SELECT r FROM Run r WHERE r.user = :user AND r.startTime >= :startDate AND r.startTime <= :endDate ORDER BY r.startTime DESC")
@@ -31,5 +44,48 @@ public interface RunRepository extends JpaRepository<Run, Long> {
     Double getTotalDistanceByUserAndDateRange(@Param("user") User user, 
                                             @Param("startDate") LocalDateTime startDate, 
                                             @Param("endDate") LocalDateTime endDate);
+    
+    @Query("SELECT r.user.id AS userId, SUM(r.totalSteps) AS totalSteps, SUM(r.distanceMeters) AS totalDistance " +
+           "FROM Run r WHERE r.startTime >= :startDate AND r.startTime <= :endDate GROUP BY r.user.id")
+    List<UserRunTotals> getTotalsGroupedByUserAndDateRange(@Param("startDate") LocalDateTime startDate, 
+                                                          @Param("endDate") LocalDateTime endDate);
+    
+    @Query("SELECT r.user.id AS userId, CAST(r.startTime AS LocalDate) AS day, SUM(r.totalSteps) AS totalSteps, SUM(r.distanceMeters) AS totalDistance " +
+           "FROM Run r WHERE r.startTime >= :startDate GROUP BY r.user.id, CAST(r.startTime AS LocalDate)")
+    List<UserDailyRunTotals> getDailyTotalsGroupedByUserSince(@Param("startDate") LocalDateTime startDate);
+    
+    // Ties are broken by user id, so every user gets a rank of their own, as on the in-memory boards
+    String RANKED_LEADERBOARD_SQL =
+            "SELECT u.id AS \"userId\", u.name AS \"name\", totals.total_steps AS \"totalSteps\", " +
+            "totals.total_distance AS \"totalDistance\", COALESCE(owned.territory_count, 0) AS \"territoriesClaimed\", " +
+            "ROW_NUMBER() OVER (ORDER BY totals.total_steps DESC, u.id) AS \"leaderboardRank\" " +
+            "FROM (SELECT r.user_id, SUM(r.total_steps) AS total_steps, COALESCE(SUM(r.distance_meters), 0) AS total_distance " +
+            "      FROM runs r WHERE r.start_time >= :startDate AND r.start_time <= :endDate GROUP BY r.user_id) totals " +
+            "JOIN users u ON u.id = totals.user_id " +
+            "LEFT JOIN (SELECT t.user_id, COUNT(*) AS territory_count FROM territories t WHERE t.is_active = true GROUP BY t.user_id) owned " +
+            "ON owned.user_id = u.id " +
+            "WHERE totals.total_steps > 0 " +
+            "ORDER BY \"leaderboardRank\" " +
+            "LIMIT :limit";
+    
+    @Query(value = RANKED_LEADERBOARD_SQL, nativeQuery = true)
+    List<LeaderboardRow> getRankedLeaderboard(@Param("startDate") LocalDateTime startDate, 
+                                              @Param("endDate") LocalDateTime endDate, 
+                                              @Param("limit") int limit);
+    
+    // Keyset pages over (start_time, id), newest first; geometry columns are never selected
+    @Query("SELECT r.id AS id, r.startTime AS startTime, r.endTime AS endTime, r.durationSeconds AS durationSeconds, " +
+           "r.totalSteps AS totalSteps, r.distanceMeters AS distanceMeters, r.isActive AS isActive " +
+           "FROM Run r WHERE r.user.id = :userId ORDER BY r.startTime DESC, r.id DESC")
+    List<RunSummary> findSummariesByUser(@Param("userId") Long userId, Pageable pageable);
+    
+    @Query("SELECT r.id AS id, r.startTime AS startTime, r.endTime AS endTime, r.durationSeconds AS durationSeconds, " +
+           "r.totalSteps AS totalSteps, r.distanceMeters AS distanceMeters, r.isActive AS isActive " +
+           "FROM Run r WHERE r.user.id = :userId " +
+           "AND (r.startTime < :startTime OR (r.startTime = :startTime AND r.id < :id)) " +
+           "ORDER BY r.startTime DESC, r.id DESC")
+    List<RunSummary> findSummariesByUserBefore(@Param("userId") Long userId,
+                                               @Param("startTime") LocalDateTime startTime,
+                                               @Param("id") Long id,
+                                               Pageable pageable);
 }
-
@@ -0,0 +1,13 @@
+package com.athlos.repository;
+
+import java.time.LocalDateTime;
+
+public interface RunSummary {
+    Long getId();
+    LocalDateTime getStartTime();
+    LocalDateTime getEndTime();
+    Long getDurationSeconds();
+    Integer getTotalSteps();
+    Double getDistanceMeters();
+    Boolean getIsActive();
+}
@@ -0,0 +1,73 @@
+package com.athlos.repository;
+
+import org.locationtech.jts.geom.Envelope;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serializes territory claims that may overlap. Each claim takes a transaction-scoped advisory
+ * lock on every grid cell its envelope touches, always in ascending key order so two claims
+ * cannot deadlock; claims in disjoint cells proceed in parallel. Row locks alone would not be
+ * enough: two claims over ground nobody owns yet have no rows to lock. Every claim also holds
+ * one all-cells lock, shared; a claim touching more than {@code territories.claim.max-lock-cells}
+ * cells takes that lock exclusively instead of its cells, and so waits for every other claim.
+ */
+@Repository
+public class TerritoryClaimLockRepository {
+
+    // Roughly 2km; a typical run's claim touches a handful of cells
+    static final double CELL_DEGREES = 0.02;
+
+    // Below every cell key (columns stay within +-9000 for valid longitudes), so it is always taken first
+    static final long ALL_CELLS_KEY = Long.MIN_VALUE;
+
+    // The volatile lock calls are evaluated after the sort, so in key order
+    private static final String LOCK_CELLS_SQL = "SELECT CASE WHEN k = " + ALL_CELLS_KEY
+            + " THEN pg_advisory_xact_lock_shared(k) ELSE pg_advisory_xact_lock(k) END"
+            + " FROM unnest(?::bigint[]) k ORDER BY k";
+
+    private static final String LOCK_ALL_CELLS_SQL = "SELECT pg_advisory_xact_lock(?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${territories.claim.max-lock-cells:256}")
+    private int maxLockCells;
+
+    // Must run inside a transaction; the locks are held until it ends
+    public void lockCells(Envelope envelope) {
+        List<Long> keys = cellKeys(envelope, maxLockCells);
+        if (keys.isEmpty()) {
+            jdbcTemplate.queryForList(LOCK_ALL_CELLS_SQL, ALL_CELLS_KEY);
+            return;
+        }
+        keys.add(ALL_CELLS_KEY);
+        jdbcTemplate.queryForList(LOCK_CELLS_SQL, (Object) keys.toArray(new Long[0]));
+    }
+
+    // Ascending cell keys covering the envelope: cell column in the high 32 bits, row in the low.
+    // Empty when the envelope touches more than maxCells cells (or is not a valid area).
+    static List<Long> cellKeys(Envelope envelope, int maxCells) {
+        double minX = Math.floor(envelope.getMinX() / CELL_DEGREES);
+        double maxX = Math.floor(envelope.getMaxX() / CELL_DEGREES);
+        double minY = Math.floor(envelope.getMinY() / CELL_DEGREES);
+        double maxY = Math.floor(envelope.getMaxY() / CELL_DEGREES);
+        double cells = (maxX - minX + 1) * (maxY - minY + 1);
+        if (envelope.isNull() || !(cells <= maxCells)) {
+            return new ArrayList<>();
+        }
+        List<Long> keys = new ArrayList<>((int) cells + 1);
+        for (int x = (int) minX; x <= (int) maxX; x++) {
+            for (int y = (int) minY; y <= (int) maxY; y++) {
+                keys.add(((long) x << 32) | (y & 0xFFFFFFFFL));
+            }
+        }
+        keys.sort(null);
+        return keys;
+    }
+}
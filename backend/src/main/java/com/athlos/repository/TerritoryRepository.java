@@ -23,5 +23,15 @@ public interface TerritoryRepository extends JpaRepository<Territory, Long> {
     
     @Query(value = "SELECT t.* FROM territories t WHERE t.is_active = true AND ST_Intersects(t.polygon, ST_GeomFromText(:wkt, 4326))", nativeQuery = true)
     List<Territory> findIntersectingTerritories(@Param("wkt") String wkt);
+    
+    // Locks the active territories whose bounding boxes touch the envelope, in id order so
+    // concurrent claims take the row locks in the same order
+    @Query(value = "SELECT t.* FROM territories t WHERE t.is_active = true " +
+            "AND t.polygon && ST_MakeEnvelope(:minLon, :minLat, :maxLon, :maxLat, 4326) ORDER BY t.id FOR UPDATE",
+            nativeQuery = true)
+    List<Territory> lockActiveInEnvelope(@Param("minLon") double minLon, @Param("minLat") double minLat,
+                                         @Param("maxLon") double maxLon, @Param("maxLat") double maxLat);
+    
+    @Query("SELECT t.user.id AS userId, COUNT(t) AS territoryCount FROM Territory t WHERE t.isActive = true GROUP BY t.user.id")
+    List<UserTerritoryCount> countActiveTerritoriesGroupedByUser();
 }
-
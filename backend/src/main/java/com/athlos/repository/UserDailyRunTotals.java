@@ -0,0 +1,10 @@
+package com.athlos.repository;
+
+import java.time.LocalDate;
+
+public interface UserDailyRunTotals {
+    Long getUserId();
+    LocalDate getDay();
+    Long getTotalSteps();
+    Double getTotalDistance();
+}
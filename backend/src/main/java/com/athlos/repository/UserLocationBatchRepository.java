@@ -0,0 +1,67 @@
+package com.athlos.repository;
+
+import com.athlos.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Writes the latest known location of many users in one JDBC batch
+@Repository
+public class UserLocationBatchRepository {
+    
+    private static final String UPDATE_SQL =
+            "UPDATE users SET current_location = ST_SetSRID(ST_MakePoint(?, ?), 4326), last_active = ? WHERE id = ?";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    public void updateAll(List<LocationUpdate> updates) {
+        jdbcTemplate.batchUpdate(UPDATE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                LocationUpdate update = updates.get(i);
+                ps.setDouble(1, update.getLongitude());
+                ps.setDouble(2, update.getLatitude());
+                ps.setTimestamp(3, Timestamp.valueOf(update.getRecordedAt()));
+                ps.setLong(4, update.getUserId());
+            }
+            
+            @Override
+            public int getBatchSize() {
+                return updates.size();
+            }
+        });
+        // These rows were written past Hibernate, so their second-level cache entries are stale
+        updates.forEach(update -> entityManagerFactory.getCache().evict(User.class, update.getUserId()));
+    }
+    
+    public static class LocationUpdate {
+        private final Long userId;
+        private final double latitude;
+        private final double longitude;
+        private final LocalDateTime recordedAt;
+        
+        public LocationUpdate(Long userId, double latitude, double longitude, LocalDateTime recordedAt) {
+            this.userId = userId;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.recordedAt = recordedAt;
+        }
+        
+        public Long getUserId() { return userId; }
+        public double getLatitude() { return latitude; }
+        public double getLongitude() { return longitude; }
+        public LocalDateTime getRecordedAt() { return recordedAt; }
+    }
+}
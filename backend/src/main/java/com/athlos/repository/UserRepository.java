@@ -2,10 +2,13 @@ package com.athlos.repository;
 
 import com.athlos.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,10 +19,42 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT u FROM User u WHERE u.email = :email AND u.password = :password")
     Optional<User> findByEmailAndPassword(@Param("email") String email, @Param("password") String password);
     
+    // Only replaces the hash it was computed from, so a concurrent password change wins
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :newPassword WHERE u.id = :id AND u.password = :oldPassword")
+    int updatePassword(@Param("id") Long id, @Param("oldPassword") String oldPassword, @Param("newPassword") String newPassword);
+    
     @Query("SELECT u FROM User u ORDER BY u.lastActive DESC")
     List<User> findAllOrderByLastActiveDesc();
     
-    @Query("SELECT u FROM User u WHERE u.name ILIKE %:searchTerm% OR u.email ILIKE %:searchTerm%")
-    List<User> findByNameOrEmailContainingIgnoreCase(@Param("searchTerm") String searchTerm);
+    // Both LIKEs are served by the trigram GIN indexes on lower(name) and lower(email); names starting
+    // with the term rank first, then by trigram similarity
+    @Query(value = "SELECT u.id AS \"id\", u.name AS \"name\", u.email AS \"email\", u.last_active AS \"lastActive\" " +
+                   "FROM users u " +
+                   "WHERE lower(u.name) LIKE :pattern ESCAPE '\\' OR lower(u.email) LIKE :pattern ESCAPE '\\' " +
+                   "ORDER BY (lower(u.name) LIKE :prefix ESCAPE '\\') DESC, similarity(lower(u.name), :term) DESC, u.id " +
+                   "LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<UserSearchRow> searchByNameOrEmail(@Param("term") String term,
+                                            @Param("pattern") String pattern,
+                                            @Param("prefix") String prefix,
+                                            @Param("limit") int limit,
+                                            @Param("offset") int offset);
+    
+    // KNN over the GiST index on current_location: the && box prefilter and <-> ordering are both index-assisted
+    @Query(value = "SELECT u.id AS \"userId\", ST_Y(u.current_location) AS \"latitude\", ST_X(u.current_location) AS \"longitude\", " +
+                   "u.last_active AS \"updatedAt\", " +
+                   "ST_DistanceSphere(u.current_location, ST_SetSRID(ST_MakePoint(:lon, :lat), 4326)) AS \"distanceMeters\" " +
+                   "FROM users u " +
+                   "WHERE u.current_location && ST_Expand(ST_SetSRID(ST_MakePoint(:lon, :lat), 4326), :radiusDegrees) " +
+                   "AND u.last_active >= :activeSince " +
+                   "AND ST_DistanceSphere(u.current_location, ST_SetSRID(ST_MakePoint(:lon, :lat), 4326)) <= :radiusMeters " +
+                   "ORDER BY u.current_location <-> ST_SetSRID(ST_MakePoint(:lon, :lat), 4326) " +
+                   "LIMIT :k", nativeQuery = true)
+    List<NearbyUserRow> findNearestActive(@Param("lat") double lat,
+                                          @Param("lon") double lon,
+                                          @Param("radiusMeters") double radiusMeters,
+                                          @Param("radiusDegrees") double radiusDegrees,
+                                          @Param("activeSince") LocalDateTime activeSince,
+                                          @Param("k") int k);
 }
-
@@ -0,0 +1,7 @@
+package com.athlos.repository;
+
+public interface UserRunTotals {
+    Long getUserId();
+    Long getTotalSteps();
+    Double getTotalDistance();
+}
@@ -0,0 +1,10 @@
+package com.athlos.repository;
+
+import java.time.LocalDateTime;
+
+public interface UserSearchRow {
+    Long getId();
+    String getName();
+    String getEmail();
+    LocalDateTime getLastActive();
+}
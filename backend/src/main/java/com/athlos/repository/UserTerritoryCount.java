@@ -0,0 +1,6 @@
+package com.athlos.repository;
+
+public interface UserTerritoryCount {
+    Long getUserId();
+    Long getTerritoryCount();
+}
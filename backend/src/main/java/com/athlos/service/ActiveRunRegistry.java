@@ -0,0 +1,167 @@
+package com.athlos.service;
+
+import com.athlos.entity.Run;
+import com.athlos.repository.RunPointBatchRepository;
+import com.athlos.repository.RunProgressRepository;
+import com.athlos.repository.RunRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the sessions of runs that are receiving points and writes them behind to
+ * {@code runs}/{@code run_points} every few seconds or every few points. A session that is not
+ * in memory (e.g. after a restart) is recovered from the last flushed state of its run.
+ */
+@Service
+public class ActiveRunRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActiveRunRegistry.class);
+
+    @Autowired
+    private RunRepository runRepository;
+
+    @Autowired
+    private RunPointBatchRepository runPointBatchRepository;
+
+    @Autowired
+    private RunProgressRepository runProgressRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${runs.write-behind.max-pending-points:50}")
+    private int maxPendingPoints;
+
+    @Value("${runs.write-behind.idle-timeout-ms:1800000}")
+    private long idleTimeoutMs;
+
+    private final GeometryFactory geometryFactory = new GeometryFactory();
+    private final Map<Long, RunSession> sessions = new ConcurrentHashMap<>();
+    // Runs being paused or ended; no new session is started for them
+    private final Set<Long> closing = ConcurrentHashMap.newKeySet();
+
+    // The live session of the run, or null when the run is paused, ended or being closed
+    RunSession sessionFor(Long runId) {
+        return sessions.computeIfAbsent(runId, this::recover);
+    }
+
+    // Called before a run is paused or ended, and undone with endClosing once its row is saved
+    void beginClosing(Long runId) {
+        closing.add(runId);
+    }
+
+    void endClosing(Long runId) {
+        closing.remove(runId);
+    }
+
+    boolean isClosing(Long runId) {
+        return closing.contains(runId);
+    }
+
+    Optional<RunSession> find(Long runId) {
+        return Optional.ofNullable(sessions.get(runId));
+    }
+
+    void flushIfDue(RunSession session) {
+        if (session.getPendingPointCount() >= maxPendingPoints) {
+            flush(session);
+        }
+    }
+
+    // Persists the final state of a run and forgets its session, e.g. on pause or end
+    void close(Long runId) {
+        RunSession session = sessions.get(runId);
+        if (session == null) {
+            return;
+        }
+        session.getFlushLock().lock();
+        try {
+            session.close();
+            try {
+                write(session);
+            } catch (RuntimeException e) {
+                session.reopen();
+                throw e;
+            }
+            sessions.remove(runId, session);
+            // Cached active-run results were overlaid by this session until now; drop them so the
+            // next lookup reads the flushed row
+            entityManagerFactory.unwrap(SessionFactory.class).getCache()
+                    .evictQueryRegion(RunRepository.ACTIVE_RUN_CACHE_REGION);
+        } finally {
+            session.getFlushLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${runs.write-behind.flush-interval-ms:5000}")
+    public void flushAll() {
+        long idleBefore = System.currentTimeMillis() - idleTimeoutMs;
+        for (RunSession session : sessions.values()) {
+            try {
+                if (session.getLastTouchedMillis() < idleBefore) {
+                    close(session.getRunId());
+                } else {
+                    flush(session);
+                }
+            } catch (RuntimeException e) {
+                logger.error("Failed to flush run {}, will retry", session.getRunId(), e);
+            }
+        }
+    }
+
+    private void flush(RunSession session) {
+        session.getFlushLock().lock();
+        try {
+            write(session);
+        } finally {
+            session.getFlushLock().unlock();
+        }
+    }
+
+    private void write(RunSession session) {
+        RunSession.Snapshot snapshot = session.drain(geometryFactory);
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                if (!snapshot.points.isEmpty()) {
+                    runPointBatchRepository.insertAll(session.getRunId(), snapshot.points);
+                }
+                runProgressRepository.updateProgress(session.getRunId(), session.getStartTime(),
+                        snapshot.totalSteps, snapshot.distanceMeters, snapshot.path);
+            });
+        } catch (RuntimeException e) {
+            session.restore(snapshot);
+            throw e;
+        }
+    }
+
+    private RunSession recover(Long runId) {
+        if (closing.contains(runId)) {
+            return null;
+        }
+        Run run = runRepository.findById(runId).orElseThrow(() -> new RuntimeException("Run not found"));
+        if (!Boolean.TRUE.equals(run.getIsActive()) || run.getEndTime() != null) {
+            return null;
+        }
+        return new RunSession(run);
+    }
+}
@@ -0,0 +1,108 @@
+package com.athlos.service;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-user ring of daily step/distance buckets covering the longest leaderboard window.
+ * Window totals are a sum over at most {@link #RETAINED_DAYS} buckets regardless of how much
+ * run history exists. Not thread-safe; {@link LeaderboardEngine} guards it with its own lock.
+ */
+class ActivityBucketStore {
+
+    // Today plus the seven previous days covered by the weekly board
+    static final int RETAINED_DAYS = 8;
+
+    private final Map<Long, Buckets> buckets = new HashMap<>();
+
+    void clear() {
+        buckets.clear();
+    }
+
+    Set<Long> userIds() {
+        return buckets.keySet();
+    }
+
+    void add(Long userId, LocalDate day, LocalDate today, long steps, double distance) {
+        long epochDay = day.toEpochDay();
+        if (epochDay <= today.toEpochDay() - RETAINED_DAYS || epochDay > today.toEpochDay()) {
+            return;
+        }
+        buckets.computeIfAbsent(userId, id -> new Buckets()).add(epochDay, steps, distance);
+    }
+
+    long steps(Long userId, LocalDate from, LocalDate to) {
+        Buckets userBuckets = buckets.get(userId);
+        return userBuckets != null ? userBuckets.steps(from.toEpochDay(), to.toEpochDay()) : 0L;
+    }
+
+    double distance(Long userId, LocalDate from, LocalDate to) {
+        Buckets userBuckets = buckets.get(userId);
+        return userBuckets != null ? userBuckets.distance(from.toEpochDay(), to.toEpochDay()) : 0.0;
+    }
+
+    // Drops buckets that fell out of the retention window and forgets users left with none
+    void evictBefore(LocalDate today) {
+        long oldestRetained = today.toEpochDay() - RETAINED_DAYS + 1;
+        buckets.values().removeIf(userBuckets -> userBuckets.evictBefore(oldestRetained));
+    }
+
+    private static final class Buckets {
+        private final long[] days = new long[RETAINED_DAYS];
+        private final long[] steps = new long[RETAINED_DAYS];
+        private final double[] distance = new double[RETAINED_DAYS];
+
+        private Buckets() {
+            Arrays.fill(days, Long.MIN_VALUE);
+        }
+
+        private void add(long epochDay, long stepsDelta, double distanceDelta) {
+            int slot = (int) Math.floorMod(epochDay, (long) RETAINED_DAYS);
+            if (days[slot] != epochDay) {
+                days[slot] = epochDay;
+                steps[slot] = 0L;
+                distance[slot] = 0.0;
+            }
+            steps[slot] += stepsDelta;
+            distance[slot] += distanceDelta;
+        }
+
+        private long steps(long fromDay, long toDay) {
+            long total = 0L;
+            for (int slot = 0; slot < RETAINED_DAYS; slot++) {
+                if (days[slot] >= fromDay && days[slot] <= toDay) {
+                    total += steps[slot];
+                }
+            }
+            return total;
+        }
+
+        private double distance(long fromDay, long toDay) {
+            double total = 0.0;
+            for (int slot = 0; slot < RETAINED_DAYS; slot++) {
+                if (days[slot] >= fromDay && days[slot] <= toDay) {
+                    total += distance[slot];
+                }
+            }
+            return total;
+        }
+
+        // Returns true once every bucket has expired
+        private boolean evictBefore(long oldestRetained) {
+            boolean empty = true;
+            for (int slot = 0; slot < RETAINED_DAYS; slot++) {
+                if (days[slot] < oldestRetained) {
+                    days[slot] = Long.MIN_VALUE;
+                    steps[slot] = 0L;
+                    distance[slot] = 0.0;
+                } else {
+                    empty = false;
+                }
+            }
+            return empty;
+        }
+    }
+}
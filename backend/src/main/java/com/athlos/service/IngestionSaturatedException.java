@@ -0,0 +1,11 @@
+package com.athlos.service;
+
+// Points were not accepted because the ingestion queue for their run is full; answered with 429
+public class IngestionSaturatedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public IngestionSaturatedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,304 @@
+package com.athlos.service;
+
+import com.athlos.dto.LeaderboardEntryDTO;
+import com.athlos.entity.User;
+import com.athlos.repository.RunRepository;
+import com.athlos.repository.TerritoryRepository;
+import com.athlos.repository.UserDailyRunTotals;
+import com.athlos.repository.UserRepository;
+import com.athlos.repository.UserRunTotals;
+import com.athlos.repository.UserTerritoryCount;
+import com.athlos.util.OrderStatisticTree;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps per-user step/distance/territory totals for every leaderboard period in memory,
+ * ordered by steps, so the top of a board and any user's rank are served without a query.
+ * Boards are seeded from the database on startup and kept current by the run and territory
+ * write paths; the daily and weekly windows are derived from {@link ActivityBucketStore}.
+ */
+@Service
+public class LeaderboardEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardEngine.class);
+
+    static final LocalDateTime ALL_TIME_START = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RunRepository runRepository;
+
+    @Autowired
+    private TerritoryRepository territoryRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<LeaderboardPeriod, Board> boards = new EnumMap<>(LeaderboardPeriod.class);
+    private final Map<Long, String> names = new HashMap<>();
+    private final Map<Long, Integer> territories = new HashMap<>();
+    private final ActivityBucketStore activityBuckets = new ActivityBucketStore();
+    // Periods changed since the publisher last drained them
+    private final Set<LeaderboardPeriod> dirtyPeriods = EnumSet.noneOf(LeaderboardPeriod.class);
+
+    public LeaderboardEngine() {
+        for (LeaderboardPeriod period : LeaderboardPeriod.values()) {
+            boards.put(period, new Board());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        LocalDate today = LocalDate.now();
+        LocalDateTime bucketStart = today.minusDays(ActivityBucketStore.RETAINED_DAYS - 1).atStartOfDay();
+
+        Map<Long, String> loadedNames = userRepository.findAll().stream()
+                .collect(Collectors.toMap(User::getId, User::getName));
+        Map<Long, Integer> loadedTerritories = territoryRepository.countActiveTerritoriesGroupedByUser().stream()
+                .collect(Collectors.toMap(UserTerritoryCount::getUserId, count -> count.getTerritoryCount().intValue()));
+        List<UserRunTotals> allTime = runRepository.getTotalsGroupedByUserAndDateRange(ALL_TIME_START, LocalDateTime.now());
+        List<UserDailyRunTotals> recentDays = runRepository.getDailyTotalsGroupedByUserSince(bucketStart);
+
+        lock.writeLock().lock();
+        try {
+            names.clear();
+            names.putAll(loadedNames);
+            territories.clear();
+            territories.putAll(loadedTerritories);
+            boards.get(LeaderboardPeriod.ALL_TIME).reset(allTime);
+
+            activityBuckets.clear();
+            for (UserDailyRunTotals row : recentDays) {
+                activityBuckets.add(row.getUserId(), row.getDay(), today,
+                        row.getTotalSteps() != null ? row.getTotalSteps() : 0L,
+                        row.getTotalDistance() != null ? row.getTotalDistance() : 0.0);
+            }
+            refreshWindows(today);
+            dirtyPeriods.addAll(EnumSet.allOf(LeaderboardPeriod.class));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Leaderboard engine loaded {} users", loadedNames.size());
+    }
+
+    // Daily and weekly windows are day-aligned, so expired buckets only need evicting when the day changes
+    @Scheduled(cron = "0 0 0 * * *")
+    public void rollWindows() {
+        LocalDate today = LocalDate.now();
+        lock.writeLock().lock();
+        try {
+            activityBuckets.evictBefore(today);
+            refreshWindows(today);
+            dirtyPeriods.add(LeaderboardPeriod.DAILY);
+            dirtyPeriods.add(LeaderboardPeriod.WEEKLY);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void recordProgress(Long userId, LocalDateTime runStartTime, int stepsDelta, double distanceDelta) {
+        if (stepsDelta == 0 && distanceDelta == 0.0) {
+            return;
+        }
+        String name = resolveName(userId);
+        LocalDate today = LocalDate.now();
+
+        lock.writeLock().lock();
+        try {
+            names.putIfAbsent(userId, name);
+            activityBuckets.add(userId, runStartTime.toLocalDate(), today, stepsDelta, distanceDelta);
+            refreshWindows(userId, today);
+            dirtyPeriods.add(LeaderboardPeriod.DAILY);
+            dirtyPeriods.add(LeaderboardPeriod.WEEKLY);
+            if (!runStartTime.isBefore(ALL_TIME_START)) {
+                boards.get(LeaderboardPeriod.ALL_TIME).add(userId, stepsDelta, distanceDelta);
+                dirtyPeriods.add(LeaderboardPeriod.ALL_TIME);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void adjustTerritories(Long userId, int delta) {
+        lock.writeLock().lock();
+        try {
+            // A user not loaded yet counts as zero; counts never go below zero in either case
+            territories.compute(userId, (id, current) -> Math.max(0, (current != null ? current : 0) + delta));
+            dirtyPeriods.addAll(EnumSet.allOf(LeaderboardPeriod.class));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void updateUserName(Long userId, String name) {
+        lock.writeLock().lock();
+        try {
+            names.put(userId, name);
+            dirtyPeriods.addAll(EnumSet.allOf(LeaderboardPeriod.class));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Returns the periods changed since the previous call and clears them
+    public Set<LeaderboardPeriod> drainDirtyPeriods() {
+        lock.writeLock().lock();
+        try {
+            Set<LeaderboardPeriod> drained = dirtyPeriods.isEmpty()
+                    ? EnumSet.noneOf(LeaderboardPeriod.class)
+                    : EnumSet.copyOf(dirtyPeriods);
+            dirtyPeriods.clear();
+            return drained;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<LeaderboardEntryDTO> top(LeaderboardPeriod period, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Standing> head = boards.get(period).ranking.head(limit);
+            List<LeaderboardEntryDTO> entries = new ArrayList<>(head.size());
+            for (int i = 0; i < head.size(); i++) {
+                entries.add(toEntry(head.get(i), i + 1));
+            }
+            return entries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<LeaderboardEntryDTO> entryFor(LeaderboardPeriod period, Long userId) {
+        lock.readLock().lock();
+        try {
+            Board board = boards.get(period);
+            Standing standing = board.standings.get(userId);
+            if (standing == null) {
+                return Optional.empty();
+            }
+            int position = board.ranking.rankOf(standing);
+            return Optional.of(toEntry(standing, position >= 0 ? position + 1 : null));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void refreshWindows(LocalDate today) {
+        boards.get(LeaderboardPeriod.DAILY).clear();
+        boards.get(LeaderboardPeriod.WEEKLY).clear();
+        for (Long userId : activityBuckets.userIds()) {
+            refreshWindows(userId, today);
+        }
+    }
+
+    // Daily covers today's bucket, weekly today plus the seven days before it
+    private void refreshWindows(Long userId, LocalDate today) {
+        LocalDate weekStart = today.minusDays(7);
+        boards.get(LeaderboardPeriod.DAILY).put(userId,
+                activityBuckets.steps(userId, today, today), activityBuckets.distance(userId, today, today));
+        boards.get(LeaderboardPeriod.WEEKLY).put(userId,
+                activityBuckets.steps(userId, weekStart, today), activityBuckets.distance(userId, weekStart, today));
+    }
+
+    private String resolveName(Long userId) {
+        lock.readLock().lock();
+        try {
+            String name = names.get(userId);
+            if (name != null) {
+                return name;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return userRepository.findById(userId).map(User::getName).orElse("");
+    }
+
+    private LeaderboardEntryDTO toEntry(Standing standing, Integer rank) {
+        LeaderboardEntryDTO entry = new LeaderboardEntryDTO();
+        entry.setUserId(standing.userId);
+        entry.setName(names.get(standing.userId));
+        entry.setAvatar("https://i.pravatar.cc/40?u=" + standing.userId);
+        entry.setTotalSteps((int) Math.min(Integer.MAX_VALUE, standing.steps));
+        entry.setTotalDistance(standing.distance);
+        entry.setTerritoriesClaimed(territories.getOrDefault(standing.userId, 0));
+        entry.setRank(rank);
+        return entry;
+    }
+
+    private static final class Standing {
+        // Most steps first; ties keep a stable order by user id
+        private static final Comparator<Standing> ORDER = Comparator
+                .comparingLong((Standing s) -> s.steps).reversed()
+                .thenComparingLong(s -> s.userId);
+
+        private final long userId;
+        private final long steps;
+        private final double distance;
+
+        private Standing(long userId, long steps, double distance) {
+            this.userId = userId;
+            this.steps = steps;
+            this.distance = distance;
+        }
+    }
+
+    private static final class Board {
+        private final Map<Long, Standing> standings = new HashMap<>();
+        private final OrderStatisticTree<Standing> ranking = new OrderStatisticTree<>(Standing.ORDER);
+
+        private void clear() {
+            standings.clear();
+            ranking.clear();
+        }
+
+        private void reset(List<UserRunTotals> rows) {
+            clear();
+            for (UserRunTotals row : rows) {
+                put(row.getUserId(),
+                        row.getTotalSteps() != null ? row.getTotalSteps() : 0L,
+                        row.getTotalDistance() != null ? row.getTotalDistance() : 0.0);
+            }
+        }
+
+        private void add(Long userId, long stepsDelta, double distanceDelta) {
+            Standing current = standings.get(userId);
+            long steps = (current != null ? current.steps : 0L) + stepsDelta;
+            double distance = (current != null ? current.distance : 0.0) + distanceDelta;
+            put(userId, steps, distance);
+        }
+
+        private void put(Long userId, long steps, double distance) {
+            Standing previous = standings.remove(userId);
+            if (previous != null) {
+                ranking.remove(previous);
+            }
+            Standing updated = new Standing(userId, steps, distance);
+            standings.put(userId, updated);
+            // Users without steps in the window are tracked but not ranked
+            if (steps > 0) {
+                ranking.add(updated);
+            }
+        }
+    }
+}
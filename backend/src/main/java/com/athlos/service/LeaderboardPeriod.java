@@ -0,0 +1,24 @@
+package com.athlos.service;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+public enum LeaderboardPeriod {
+    DAILY("daily"),
+    WEEKLY("weekly"),
+    ALL_TIME("all-time");
+    
+    private final String path;
+    
+    LeaderboardPeriod(String path) {
+        this.path = path;
+    }
+    
+    public String getPath() { return path; }
+    
+    public static Optional<LeaderboardPeriod> fromPath(String path) {
+        return Arrays.stream(values())
+                .filter(period -> period.path.equalsIgnoreCase(path))
+                .findFirst();
+    }
+}
@@ -0,0 +1,93 @@
+package com.athlos.service;
+
+import com.athlos.config.StompDestinations;
+import com.athlos.dto.LeaderboardDeltaDTO;
+import com.athlos.dto.LeaderboardEntryDTO;
+import com.athlos.dto.LeaderboardSnapshotDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Owns leaderboard publication over STOMP. Changes reported by {@link LeaderboardEngine} are
+ * coalesced over a short tick; each changed period is recomputed once per tick and only the
+ * entries that moved are pushed to {@code /topic/leaderboard.{period}.deltas}. Subscribers get
+ * the current versioned snapshot on subscribe and apply deltas whose base version matches.
+ */
+@Service
+public class LeaderboardPublisher {
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private LeaderboardEngine leaderboardEngine;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    private final Map<LeaderboardPeriod, LeaderboardSnapshotDTO> snapshots = new EnumMap<>(LeaderboardPeriod.class);
+
+    @Scheduled(fixedDelayString = "${leaderboard.publish-interval-ms:1000}")
+    public synchronized void publishChanges() {
+        for (LeaderboardPeriod period : leaderboardEngine.drainDirtyPeriods()) {
+            LeaderboardSnapshotDTO previous = snapshots.get(period);
+            if (previous == null) {
+                // Nobody has seen this period yet, so there is nothing to diff against
+                snapshots.put(period, new LeaderboardSnapshotDTO(period.getPath(), 1L, leaderboardService.getLeaderboard(period)));
+                continue;
+            }
+            List<LeaderboardEntryDTO> entries = leaderboardService.getLeaderboard(period);
+            LeaderboardDeltaDTO delta = diff(period, previous, entries);
+            if (delta == null) {
+                continue;
+            }
+            snapshots.put(period, new LeaderboardSnapshotDTO(period.getPath(), delta.getVersion(), entries));
+            messagingTemplate.convertAndSend(StompDestinations.leaderboardDeltas(period.getPath()), delta);
+        }
+    }
+
+    public synchronized LeaderboardSnapshotDTO getSnapshot(LeaderboardPeriod period) {
+        return snapshots.computeIfAbsent(period,
+                p -> new LeaderboardSnapshotDTO(p.getPath(), 1L, leaderboardService.getLeaderboard(p)));
+    }
+
+    // Entries that are new or changed, plus users that dropped off the board, or null when nothing moved
+    private LeaderboardDeltaDTO diff(LeaderboardPeriod period, LeaderboardSnapshotDTO previous, List<LeaderboardEntryDTO> entries) {
+        Map<Long, LeaderboardEntryDTO> before = new LinkedHashMap<>();
+        for (LeaderboardEntryDTO entry : previous.getEntries()) {
+            before.put(entry.getUserId(), entry);
+        }
+        List<LeaderboardEntryDTO> upserts = new ArrayList<>();
+        for (LeaderboardEntryDTO entry : entries) {
+            LeaderboardEntryDTO old = before.remove(entry.getUserId());
+            if (old == null || !sameEntry(old, entry)) {
+                upserts.add(entry);
+            }
+        }
+        List<Long> removed = new ArrayList<>(before.keySet());
+        if (upserts.isEmpty() && removed.isEmpty()) {
+            return null;
+        }
+        long version = previous.getVersion() + 1;
+        return new LeaderboardDeltaDTO(period.getPath(), previous.getVersion(), version,
+                Collections.unmodifiableList(upserts), Collections.unmodifiableList(removed));
+    }
+
+    private static boolean sameEntry(LeaderboardEntryDTO a, LeaderboardEntryDTO b) {
+        return Objects.equals(a.getRank(), b.getRank())
+                && Objects.equals(a.getTotalSteps(), b.getTotalSteps())
+                && Objects.equals(a.getTotalDistance(), b.getTotalDistance())
+                && Objects.equals(a.getTerritoriesClaimed(), b.getTerritoriesClaimed())
+                && Objects.equals(a.getName(), b.getName());
+    }
+}
@@ -1,110 +1,115 @@
 package com.athlos.service;
 
 import com.athlos.dto.LeaderboardEntryDTO;
-import com.athlos.entity.User;
+import com.athlos.repository.LeaderboardRow;
 import com.athlos.repository.RunRepository;
-import com.athlos.repository.TerritoryRepository;
-import com.athlos.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PostConstruct;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 public class LeaderboardService {
     
+    private static final int LEADERBOARD_SIZE = 50;
+    
     @Autowired
-    private UserRepository userRepository;
+    private LeaderboardEngine leaderboardEngine;
     
     @Autowired
     private RunRepository runRepository;
     
-    @Autowired
-    private TerritoryRepository territoryRepository;
+    @Value("${leaderboard.source.daily:memory}")
+    private String dailySource;
+    
+    @Value("${leaderboard.source.weekly:memory}")
+    private String weeklySource;
+    
+    @Value("${leaderboard.source.all-time:memory}")
+    private String allTimeSource;
+    
+    private final Map<LeaderboardPeriod, LeaderboardSource> sources = new EnumMap<>(LeaderboardPeriod.class);
+    
+    // Parsed once, so a mistyped source fails startup instead of every leaderboard request
+    @PostConstruct
+    public void init() {
+        sources.put(LeaderboardPeriod.DAILY, parseSource(LeaderboardPeriod.DAILY, dailySource));
+        sources.put(LeaderboardPeriod.WEEKLY, parseSource(LeaderboardPeriod.WEEKLY, weeklySource));
+        sources.put(LeaderboardPeriod.ALL_TIME, parseSource(LeaderboardPeriod.ALL_TIME, allTimeSource));
+    }
     
     public List<LeaderboardEntryDTO> getDailyLeaderboard() {
-        LocalDateTime startOfDay = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS);
-        LocalDateTime endOfDay = startOfDay.plusDays(1);
-        
-        return userRepository.findAll().stream()
-                .map(user -> {
-                    Integer totalSteps = runRepository.getTotalStepsByUserAndDateRange(user, startOfDay, endOfDay);
-                    Double totalDistance = runRepository.getTotalDistanceByUserAndDateRange(user, startOfDay, endOfDay);
-                    Integer territoriesClaimed = territoryRepository.countActiveTerritoriesByUser(user);
-                    
-                    LeaderboardEntryDTO entry = new LeaderboardEntryDTO();
-                    entry.setUserId(user.getId());
-                    entry.setName(user.getName());
-                    entry.setAvatar("https://i.pravatar.cc/40?u=" + user.getId());
-                    entry.setTotalSteps(totalSteps != null ? totalSteps : 0);
-                    entry.setTotalDistance(totalDistance != null ? totalDistance : 0.0);
-                    entry.setTerritoriesClaimed(territoriesClaimed != null ? territoriesClaimed : 0);
-                    
-                    return entry;
-                })
-                .filter(entry -> entry.getTotalSteps() > 0)
-                .sorted((a, b) -> Integer.compare(b.getTotalSteps(), a.getTotalSteps()))
-                .peek(entry -> entry.setRank(getRank(entry, getDailyLeaderboard())))
-                .limit(50)
-                .collect(Collectors.toList());
+        return getLeaderboard(LeaderboardPeriod.DAILY);
     }
     
     public List<LeaderboardEntryDTO> getWeeklyLeaderboard() {
-        LocalDateTime startOfWeek = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS).minusDays(7);
-        LocalDateTime endOfWeek = LocalDateTime.now();
-        
-        return userRepository.findAll().stream()
-                .map(user -> {
-                    Integer totalSteps = runRepository.getTotalStepsByUserAndDateRange(user, startOfWeek, endOfWeek);
-                    Double totalDistance = runRepository.getTotalDistanceByUserAndDateRange(user, startOfWeek, endOfWeek);
-                    Integer territoriesClaimed = territoryRepository.countActiveTerritoriesByUser(user);
-                    
-                    LeaderboardEntryDTO entry = new LeaderboardEntryDTO();
-                    entry.setUserId(user.getId());
-                    entry.setName(user.getName());
-                    entry.setAvatar("https://i.pravatar.cc/40?u=" + user.getId());
-                    entry.setTotalSteps(totalSteps != null ? totalSteps : 0);
-                    entry.setTotalDistance(totalDistance != null ? totalDistance : 0.0);
-                    entry.setTerritoriesClaimed(territoriesClaimed != null ? territoriesClaimed : 0);
-                    
-                    return entry;
-                })
-                .filter(entry -> entry.getTotalSteps() > 0)
-                .sorted((a, b) -> Integer.compare(b.getTotalSteps(), a.getTotalSteps()))
-                .peek(entry -> entry.setRank(getRank(entry, getWeeklyLeaderboard())))
-                .limit(50)
-                .collect(Collectors.toList());
+        return getLeaderboard(LeaderboardPeriod.WEEKLY);
     }
     
     public List<LeaderboardEntryDTO> getAllTimeLeaderboard() {
-        return userRepository.findAll().stream()
-                .map(user -> {
-                    Integer totalSteps = runRepository.getTotalStepsByUserAndDateRange(user, LocalDateTime.of(2020, 1, 1, 0, 0), LocalDateTime.now());
-                    Double totalDistance = runRepository.getTotalDistanceByUserAndDateRange(user, LocalDateTime.of(2020, 1, 1, 0, 0), LocalDateTime.now());
-                    Integer territoriesClaimed = territoryRepository.countActiveTerritoriesByUser(user);
-                    
-                    LeaderboardEntryDTO entry = new LeaderboardEntryDTO();
-                    entry.setUserId(user.getId());
-                    entry.setName(user.getName());
-                    entry.setAvatar("https://i.pravatar.cc/40?u=" + user.getId());
-                    entry.setTotalSteps(totalSteps != null ? totalSteps : 0);
-                    entry.setTotalDistance(totalDistance != null ? totalDistance : 0.0);
-                    entry.setTerritoriesClaimed(territoriesClaimed != null ? territoriesClaimed : 0);
-                    
-                    return entry;
-                })
-                .filter(entry -> entry.getTotalSteps() > 0)
-                .sorted((a, b) -> Integer.compare(b.getTotalSteps(), a.getTotalSteps()))
-                .peek(entry -> entry.setRank(getRank(entry, getAllTimeLeaderboard())))
-                .limit(50)
+        return getLeaderboard(LeaderboardPeriod.ALL_TIME);
+    }
+    
+    public List<LeaderboardEntryDTO> getLeaderboard(LeaderboardPeriod period) {
+        if (sourceFor(period) == LeaderboardSource.SQL) {
+            return queryLeaderboard(period);
+        }
+        return leaderboardEngine.top(period, LEADERBOARD_SIZE);
+    }
+    
+    public Optional<LeaderboardEntryDTO> getUserStanding(LeaderboardPeriod period, Long userId) {
+        return leaderboardEngine.entryFor(period, userId);
+    }
+    
+    private LeaderboardSource sourceFor(LeaderboardPeriod period) {
+        return sources.get(period);
+    }
+    
+    private static LeaderboardSource parseSource(LeaderboardPeriod period, String value) {
+        try {
+            return LeaderboardSource.fromProperty(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("leaderboard.source." + period.getPath() + " must be memory or sql, was '" + value + "'", e);
+        }
+    }
+    
+    // Same windows the in-memory boards cover, computed and ranked in a single round trip
+    private List<LeaderboardEntryDTO> queryLeaderboard(LeaderboardPeriod period) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime startOfDay = now.truncatedTo(ChronoUnit.DAYS);
+        List<LeaderboardRow> rows;
+        switch (period) {
+            case DAILY:
+                rows = runRepository.getRankedLeaderboard(startOfDay, startOfDay.plusDays(1), LEADERBOARD_SIZE);
+                break;
+            case WEEKLY:
+                rows = runRepository.getRankedLeaderboard(startOfDay.minusDays(7), now, LEADERBOARD_SIZE);
+                break;
+            default:
+                rows = runRepository.getRankedLeaderboard(LeaderboardEngine.ALL_TIME_START, now, LEADERBOARD_SIZE);
+        }
+        return rows.stream()
+                .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
     
-    private int getRank(LeaderboardEntryDTO entry, List<LeaderboardEntryDTO> leaderboard) {
-        return leaderboard.indexOf(entry) + 1;
+    private LeaderboardEntryDTO convertToDTO(LeaderboardRow row) {
+        LeaderboardEntryDTO entry = new LeaderboardEntryDTO();
+        entry.setUserId(row.getUserId());
+        entry.setName(row.getName());
+        entry.setAvatar("https://i.pravatar.cc/40?u=" + row.getUserId());
+        entry.setTotalSteps(row.getTotalSteps() != null ? row.getTotalSteps().intValue() : 0);
+        entry.setTotalDistance(row.getTotalDistance() != null ? row.getTotalDistance() : 0.0);
+        entry.setTerritoriesClaimed(row.getTerritoriesClaimed() != null ? row.getTerritoriesClaimed().intValue() : 0);
+        entry.setRank(row.getLeaderboardRank() != null ? row.getLeaderboardRank().intValue() : null);
+        return entry;
     }
 }
-
@@ -0,0 +1,12 @@
+package com.athlos.service;
+
+public enum LeaderboardSource {
+    // Served by LeaderboardEngine without touching the database
+    MEMORY,
+    // One grouped, window-ranked query per request
+    SQL;
+    
+    public static LeaderboardSource fromProperty(String value) {
+        return valueOf(value.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,272 @@
+package com.athlos.service;
+
+import com.athlos.config.StompDestinations;
+import com.athlos.dto.NearbyCellUpdateDTO;
+import com.athlos.dto.NearbyRunnerDTO;
+import com.athlos.repository.UserLocationBatchRepository;
+import com.athlos.util.GeoMath;
+import com.athlos.util.Geohash;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory grid of runners' latest locations, partitioned by precision-5 geohash cell.
+ * Updates are coalesced per user and fanned out once per tick to {@code /topic/nearby.{geohash5}};
+ * {@code users.current_location} is written behind in periodic batches.
+ */
+@Service
+public class LiveLocationService {
+
+    public static final int CELL_PRECISION = 5;
+
+    private static final double METERS_PER_DEGREE = 111320.0;
+    // Bounds the search near the poles, where cells become very narrow
+    private static final int MAX_SEARCH_RINGS = 64;
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveLocationService.class);
+
+    @Autowired
+    private UserLocationBatchRepository userLocationBatchRepository;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    // Runners not heard from for this long drop off the grid
+    @Value("${locations.live.ttl-ms:300000}")
+    private long ttlMs;
+
+    private final Map<Long, LiveLocation> locations = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> cells = new ConcurrentHashMap<>();
+    // Latest unpublished location per user, and users that left a cell since the last tick
+    private final Map<Long, LiveLocation> pendingPublish = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> pendingDepartures = new ConcurrentHashMap<>();
+    // Latest location per user not yet written to the database
+    private final Map<Long, LiveLocation> pendingWrites = new ConcurrentHashMap<>();
+    private final long startedAtMillis = System.currentTimeMillis();
+
+    public void update(Long userId, double latitude, double longitude) {
+        String cell = Geohash.encode(latitude, longitude, CELL_PRECISION);
+        LiveLocation next = new LiveLocation(userId, latitude, longitude, cell, LocalDateTime.now());
+        locations.compute(userId, (id, previous) -> {
+            if (previous != null && !previous.cell.equals(cell)) {
+                leaveCell(id, previous.cell);
+            }
+            addTo(cells, cell, id);
+            removeFrom(pendingDepartures, cell, id);
+            return next;
+        });
+        pendingPublish.put(userId, next);
+        pendingWrites.put(userId, next);
+    }
+
+    public boolean isTracked(Long userId) {
+        return locations.containsKey(userId);
+    }
+
+    public Optional<LiveLocation> find(Long userId) {
+        return Optional.ofNullable(locations.get(userId));
+    }
+
+    public long getTtlMs() {
+        return ttlMs;
+    }
+
+    // The grid only knows runners that reported since startup; once a full TTL has passed it
+    // holds everyone the database would consider active
+    public boolean isWarm() {
+        return System.currentTimeMillis() - startedAtMillis >= ttlMs;
+    }
+
+    // k nearest live runners within the radius, searched ring by ring outwards from the query's cell
+    public List<NearbyRunnerDTO> nearest(double latitude, double longitude, int k, double radiusMeters) {
+        String centre = Geohash.encode(latitude, longitude, CELL_PRECISION);
+        double[] bounds = Geohash.bounds(centre);
+        double cellLat = bounds[2] - bounds[0];
+        double cellLon = bounds[3] - bounds[1];
+
+        // Max-heap on distance holding the best k so far
+        PriorityQueue<NearbyRunnerDTO> best = new PriorityQueue<>(
+                Comparator.comparingDouble(NearbyRunnerDTO::getDistanceMeters).reversed());
+        for (int ring = 0; ; ring++) {
+            for (String cell : Geohash.ring(centre, ring)) {
+                for (Long userId : cells.getOrDefault(cell, Collections.emptySet())) {
+                    LiveLocation location = locations.get(userId);
+                    if (location == null) {
+                        continue;
+                    }
+                    double distance = GeoMath.haversineMeters(latitude, longitude, location.latitude, location.longitude);
+                    if (distance > radiusMeters
+                            || (best.size() == k && distance >= best.peek().getDistanceMeters())) {
+                        continue;
+                    }
+                    NearbyRunnerDTO candidate = location.toDTO();
+                    candidate.setDistanceMeters(distance);
+                    best.add(candidate);
+                    if (best.size() > k) {
+                        best.poll();
+                    }
+                }
+            }
+            // Everything in the next ring is at least `ring` whole cells away from the query point
+            double farLat = Math.min(89.0, Math.abs(latitude) + (ring + 1) * cellLat);
+            double clearance = ring * Math.min(cellLat * METERS_PER_DEGREE,
+                    cellLon * METERS_PER_DEGREE * Math.cos(Math.toRadians(farLat)));
+            boolean heapSettled = best.size() == k && best.peek().getDistanceMeters() <= clearance;
+            if (heapSettled || clearance > radiusMeters || ring >= MAX_SEARCH_RINGS) {
+                break;
+            }
+        }
+
+        List<NearbyRunnerDTO> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(NearbyRunnerDTO::getDistanceMeters));
+        return result;
+    }
+
+    public NearbyCellUpdateDTO snapshotOfCell(String cell) {
+        List<NearbyRunnerDTO> runners = new ArrayList<>();
+        for (Long userId : cells.getOrDefault(cell, Collections.emptySet())) {
+            LiveLocation location = locations.get(userId);
+            if (location != null && location.cell.equals(cell)) {
+                runners.add(location.toDTO());
+            }
+        }
+        return new NearbyCellUpdateDTO(cell, runners, Collections.emptyList());
+    }
+
+    @Scheduled(fixedDelayString = "${locations.live.publish-interval-ms:1000}")
+    public void publishPending() {
+        Map<String, List<NearbyRunnerDTO>> moved = new HashMap<>();
+        for (Long userId : new ArrayList<>(pendingPublish.keySet())) {
+            LiveLocation location = pendingPublish.remove(userId);
+            if (location != null && locations.get(userId) == location) {
+                moved.computeIfAbsent(location.cell, c -> new ArrayList<>()).add(location.toDTO());
+            }
+        }
+        Map<String, List<Long>> departed = new HashMap<>();
+        for (String cell : new ArrayList<>(pendingDepartures.keySet())) {
+            Set<Long> userIds = pendingDepartures.remove(cell);
+            if (userIds != null && !userIds.isEmpty()) {
+                departed.put(cell, new ArrayList<>(userIds));
+            }
+        }
+
+        Set<String> changedCells = new HashSet<>(moved.keySet());
+        changedCells.addAll(departed.keySet());
+        for (String cell : changedCells) {
+            messagingTemplate.convertAndSend(StompDestinations.nearby(cell), new NearbyCellUpdateDTO(cell,
+                    moved.getOrDefault(cell, Collections.emptyList()),
+                    departed.getOrDefault(cell, Collections.emptyList())));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${locations.write-behind.flush-interval-ms:10000}")
+    public void flushLocations() {
+        evictStale();
+        List<UserLocationBatchRepository.LocationUpdate> batch = new ArrayList<>();
+        List<LiveLocation> drained = new ArrayList<>();
+        for (Long userId : new ArrayList<>(pendingWrites.keySet())) {
+            LiveLocation location = pendingWrites.remove(userId);
+            if (location != null) {
+                drained.add(location);
+                batch.add(new UserLocationBatchRepository.LocationUpdate(userId, location.latitude,
+                        location.longitude, location.updatedAt));
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            userLocationBatchRepository.updateAll(batch);
+        } catch (RuntimeException e) {
+            // Retry on the next flush unless a newer location has arrived in the meantime
+            drained.forEach(location -> pendingWrites.putIfAbsent(location.userId, location));
+            logger.warn("Writing {} user locations failed, will retry", batch.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushLocations();
+    }
+
+    private void evictStale() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(ttlMs * 1_000_000L);
+        for (LiveLocation location : new ArrayList<>(locations.values())) {
+            if (location.updatedAt.isBefore(cutoff)) {
+                locations.computeIfPresent(location.userId, (id, current) -> {
+                    if (current != location) {
+                        return current;
+                    }
+                    leaveCell(id, current.cell);
+                    return null;
+                });
+            }
+        }
+    }
+
+    private void leaveCell(Long userId, String cell) {
+        removeFrom(cells, cell, userId);
+        addTo(pendingDepartures, cell, userId);
+    }
+
+    // Set membership changes go through compute so they cannot race with a set being dropped
+    private static void addTo(Map<String, Set<Long>> sets, String cell, Long userId) {
+        sets.compute(cell, (c, members) -> {
+            Set<Long> updated = members != null ? members : ConcurrentHashMap.newKeySet();
+            updated.add(userId);
+            return updated;
+        });
+    }
+
+    private static void removeFrom(Map<String, Set<Long>> sets, String cell, Long userId) {
+        sets.computeIfPresent(cell, (c, members) -> {
+            members.remove(userId);
+            return members.isEmpty() ? null : members;
+        });
+    }
+
+    public static final class LiveLocation {
+        private final Long userId;
+        private final double latitude;
+        private final double longitude;
+        private final String cell;
+        private final LocalDateTime updatedAt;
+
+        private LiveLocation(Long userId, double latitude, double longitude, String cell, LocalDateTime updatedAt) {
+            this.userId = userId;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.cell = cell;
+            this.updatedAt = updatedAt;
+        }
+
+        public Long getUserId() { return userId; }
+        public double getLatitude() { return latitude; }
+        public double getLongitude() { return longitude; }
+        public String getCell() { return cell; }
+        public LocalDateTime getUpdatedAt() { return updatedAt; }
+
+        private NearbyRunnerDTO toDTO() {
+            return new NearbyRunnerDTO(userId, latitude, longitude, updatedAt);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.athlos.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Token buckets on login attempts, one per client address and one per account. A client or
+ * account that has used up its burst is turned away until the bucket refills, before any
+ * password hashing happens.
+ */
+@Service
+public class LoginRateLimiter {
+
+    // Idle buckets are full again after this long, so they can be forgotten
+    private static final Duration IDLE_EXPIRY = Duration.ofMinutes(10);
+    private static final long MAX_TRACKED_KEYS = 100_000;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${security.login.rate-limit.per-ip.capacity:20}")
+    private int ipCapacity;
+
+    @Value("${security.login.rate-limit.per-ip.refill-per-minute:20}")
+    private int ipRefillPerMinute;
+
+    @Value("${security.login.rate-limit.per-account.capacity:5}")
+    private int accountCapacity;
+
+    @Value("${security.login.rate-limit.per-account.refill-per-minute:5}")
+    private int accountRefillPerMinute;
+
+    private Cache<String, TokenBucket> ipBuckets;
+    private Cache<String, TokenBucket> accountBuckets;
+    private Counter throttledByIp;
+    private Counter throttledByAccount;
+
+    @PostConstruct
+    public void init() {
+        ipBuckets = Caffeine.newBuilder().maximumSize(MAX_TRACKED_KEYS).expireAfterAccess(IDLE_EXPIRY).build();
+        accountBuckets = Caffeine.newBuilder().maximumSize(MAX_TRACKED_KEYS).expireAfterAccess(IDLE_EXPIRY).build();
+        throttledByIp = Counter.builder("athlos.auth.login.throttled")
+                .tag("scope", "ip")
+                .description("Login attempts rejected by the per-address rate limit")
+                .register(meterRegistry);
+        throttledByAccount = Counter.builder("athlos.auth.login.throttled")
+                .tag("scope", "account")
+                .description("Login attempts rejected by the per-account rate limit")
+                .register(meterRegistry);
+    }
+
+    // Throws LoginThrottledException when either bucket is empty
+    public void acquire(String clientAddress, String email) {
+        if (clientAddress != null) {
+            TokenBucket bucket = ipBuckets.get(clientAddress, key -> new TokenBucket(ipCapacity, ipRefillPerMinute));
+            long retryAfter = bucket.tryTake();
+            if (retryAfter > 0) {
+                throttledByIp.increment();
+                throw new LoginThrottledException("Too many login attempts from this address", retryAfter);
+            }
+        }
+        if (email != null) {
+            String account = email.trim().toLowerCase(Locale.ROOT);
+            TokenBucket bucket = accountBuckets.get(account, key -> new TokenBucket(accountCapacity, accountRefillPerMinute));
+            long retryAfter = bucket.tryTake();
+            if (retryAfter > 0) {
+                throttledByAccount.increment();
+                throw new LoginThrottledException("Too many login attempts for this account", retryAfter);
+            }
+        }
+    }
+
+    private static final class TokenBucket {
+        private final int capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        private TokenBucket(int capacity, int refillPerMinute) {
+            this.capacity = capacity;
+            this.tokensPerNano = refillPerMinute / (double) Duration.ofMinutes(1).toNanos();
+            this.tokens = capacity;
+        }
+
+        // Takes a token and returns 0, or returns the whole seconds until one is available
+        private synchronized long tryTake() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano / 1e9));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.athlos.service;
+
+import com.athlos.repository.PartitionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Keeps monthly partitions of {@code runs} and {@code run_points} created ahead of time, so new
+ * rows land in their month's partition rather than the default one. Rows that did land in the
+ * default partition are moved into a partition of their own month.
+ */
+@Service
+public class PartitionMaintenanceJob {
+
+    private static final List<String> PARTITIONED_TABLES = List.of("runs", "run_points");
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionMaintenanceJob.class);
+
+    @Autowired
+    private PartitionRepository partitionRepository;
+
+    @Value("${partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        ensureFuturePartitions();
+    }
+
+    @Scheduled(cron = "${partitions.maintenance-cron:0 15 3 * * *}")
+    public void ensureFuturePartitions() {
+        LocalDate thisMonth = LocalDate.now().withDayOfMonth(1);
+        LocalDate lastMonth = thisMonth.plusMonths(monthsAhead);
+        for (String table : PARTITIONED_TABLES) {
+            try {
+                int created = partitionRepository.createMonthlyPartitions(table, thisMonth, lastMonth);
+                if (created > 0) {
+                    logger.info("Created {} monthly partitions of {} up to {}", created, table, lastMonth);
+                }
+                int drained = partitionRepository.drainDefaultPartition(table);
+                if (drained > 0) {
+                    logger.warn("Moved rows of {} out of its default partition into {} new monthly partitions",
+                            table, drained);
+                }
+            } catch (RuntimeException e) {
+                logger.error("Failed to create partitions of {}, will retry", table, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.athlos.service;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+// How run geometry is written in responses: a list of point objects, or a Google encoded polyline
+public enum PathFormat {
+    POINTS("points"),
+    POLYLINE("polyline");
+    
+    public static final String POLYLINE_MEDIA_TYPE = "application/vnd.athlos.polyline+json";
+    
+    private final String path;
+    
+    PathFormat(String path) {
+        this.path = path;
+    }
+    
+    public String getPath() { return path; }
+    
+    public static Optional<PathFormat> fromPath(String path) {
+        return Arrays.stream(values())
+                .filter(format -> format.path.equalsIgnoreCase(path))
+                .findFirst();
+    }
+    
+    // An explicit query parameter wins over the Accept header; points are the default
+    public static PathFormat resolve(String parameter, String accept) {
+        if (parameter != null) {
+            return fromPath(parameter).orElseThrow(() -> new IllegalArgumentException("Unknown path format: " + parameter));
+        }
+        if (accept != null && accept.contains(POLYLINE_MEDIA_TYPE)) {
+            return POLYLINE;
+        }
+        return POINTS;
+    }
+}
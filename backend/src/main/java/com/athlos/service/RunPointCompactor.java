@@ -0,0 +1,139 @@
+package com.athlos.service;
+
+import com.athlos.entity.RunPoint;
+import com.athlos.repository.RunPointArchiveRepository;
+import com.athlos.util.RunPointCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Folds the {@code run_points} rows of finished runs into {@code runs.compacted_points} and
+ * deletes the rows. Runs are picked up once they have been ended for a grace period, so a
+ * quickly resumed run is not compacted twice; points written after compaction are merged in
+ * on the next pass. Each handled run is marked with {@code compacted_at}, so a pass only reads
+ * runs that finished since the last one.
+ */
+@Service
+public class RunPointCompactor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunPointCompactor.class);
+
+    @Autowired
+    private RunPointArchiveRepository runPointArchiveRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${runs.compaction.grace-ms:600000}")
+    private long graceMs;
+
+    @Value("${runs.compaction.batch-size:100}")
+    private int batchSize;
+
+    private final GeometryFactory geometryFactory = new GeometryFactory();
+    private final AtomicLong totalRowBytes = new AtomicLong();
+    private final AtomicLong totalCompactedBytes = new AtomicLong();
+
+    private Counter compactedPoints;
+    private Counter rowBytesRemoved;
+    private Counter compactedBytesWritten;
+
+    @PostConstruct
+    public void registerMeters() {
+        compactedPoints = Counter.builder("athlos.compaction.points")
+                .description("run_points rows packed into their run")
+                .register(meterRegistry);
+        rowBytesRemoved = Counter.builder("athlos.compaction.bytes")
+                .description("Point data handled by compaction: rows (and earlier blobs) removed, compacted blobs written")
+                .baseUnit("bytes")
+                .tag("form", "rows")
+                .register(meterRegistry);
+        compactedBytesWritten = Counter.builder("athlos.compaction.bytes")
+                .description("Point data handled by compaction: rows (and earlier blobs) removed, compacted blobs written")
+                .baseUnit("bytes")
+                .tag("form", "compacted")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${runs.compaction.interval-ms:60000}")
+    public void compactFinishedRuns() {
+        LocalDateTime endedBefore = LocalDateTime.now().minusNanos(graceMs * 1_000_000L);
+        Map<Long, LocalDateTime> runs = runPointArchiveRepository.findCompactable(endedBefore, batchSize);
+        if (runs.isEmpty()) {
+            return;
+        }
+        long points = 0;
+        long rowBytes = 0;
+        long compactedBytes = 0;
+        for (Map.Entry<Long, LocalDateTime> run : runs.entrySet()) {
+            Long runId = run.getKey();
+            try {
+                Result result = new TransactionTemplate(transactionManager).execute(status -> compact(runId, run.getValue()));
+                points += result.points;
+                rowBytes += result.rowBytes;
+                compactedBytes += result.compactedBytes;
+            } catch (RuntimeException e) {
+                logger.error("Failed to compact points of run {}, will retry", runId, e);
+            }
+        }
+        compactedPoints.increment(points);
+        rowBytesRemoved.increment(rowBytes);
+        compactedBytesWritten.increment(compactedBytes);
+        long savedTotal = totalRowBytes.addAndGet(rowBytes) - totalCompactedBytes.addAndGet(compactedBytes);
+        logger.info("Compacted {} points of {} runs from {} bytes of rows into {} bytes ({} bytes saved since startup)",
+                points, runs.size(), rowBytes, compactedBytes, savedTotal);
+    }
+
+    private Result compact(Long runId, LocalDateTime startTime) {
+        // Taking the run's row lock first keeps two compactions of the same run from interleaving
+        byte[] existing = runPointArchiveRepository.lockCompacted(runId, startTime);
+        RunPointArchiveRepository.PointRows rows = runPointArchiveRepository.findRows(runId);
+        runPointArchiveRepository.markCompacted(runId, startTime);
+        if (rows.getPoints().isEmpty()) {
+            return new Result(0, 0, 0);
+        }
+        List<RunPoint> points = new ArrayList<>();
+        if (existing != null) {
+            points.addAll(RunPointCodec.decode(existing, geometryFactory));
+        }
+        points.addAll(rows.getPoints());
+        points.sort(Comparator.comparing(RunPoint::getTimestamp));
+        byte[] compacted = RunPointCodec.encode(points);
+        runPointArchiveRepository.storeCompacted(runId, startTime, compacted);
+        runPointArchiveRepository.deleteRows(runId, rows);
+        long previousBytes = existing != null ? existing.length : 0;
+        return new Result(rows.getPoints().size(), rows.getBytes() + previousBytes, compacted.length);
+    }
+
+    private static final class Result {
+        final long points;
+        final long rowBytes;
+        final long compactedBytes;
+
+        Result(long points, long rowBytes, long compactedBytes) {
+            this.points = points;
+            this.rowBytes = rowBytes;
+            this.compactedBytes = compactedBytes;
+        }
+    }
+}
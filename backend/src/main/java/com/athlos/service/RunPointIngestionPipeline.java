@@ -0,0 +1,266 @@
+package com.athlos.service;
+
+import com.athlos.entity.RunPoint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Accepts run points into bounded queues and applies them to the run sessions on consumer
+ * threads, so the request returns as soon as the points are queued. Runs are hashed onto a fixed
+ * set of partitions, each drained by a single thread, so the points of one run are applied in the
+ * order they arrived. A full partition rejects new points instead of blocking the caller.
+ */
+@Service
+public class RunPointIngestionPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunPointIngestionPipeline.class);
+
+    // Submissions a consumer takes off its queue in one go; points of the same run are applied together
+    private static final int MAX_DRAIN = 256;
+
+    @Autowired
+    private ActiveRunRegistry activeRunRegistry;
+
+    @Autowired
+    private LeaderboardEngine leaderboardEngine;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${runs.ingestion.partitions:4}")
+    private int partitionCount;
+
+    // Per partition, in submissions (one point or one batch each)
+    @Value("${runs.ingestion.queue-capacity:4096}")
+    private int queueCapacity;
+
+    private final List<BlockingQueue<Submission>> partitions = new ArrayList<>();
+    private final List<Thread> consumers = new ArrayList<>();
+    // Submissions queued or being applied, per run
+    private final Map<Long, InFlight> inFlight = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+
+    private Timer lagTimer;
+    private Counter rejected;
+    private Counter failedPoints;
+    private Counter droppedPoints;
+
+    @PostConstruct
+    public void start() {
+        lagTimer = Timer.builder("athlos.ingestion.lag")
+                .description("Time from a point being accepted to it being applied to its run")
+                .register(meterRegistry);
+        rejected = Counter.builder("athlos.ingestion.rejected")
+                .description("Point submissions turned away with 429 because their partition was full")
+                .register(meterRegistry);
+        failedPoints = Counter.builder("athlos.ingestion.failed")
+                .description("Accepted points that could not be applied to their run")
+                .register(meterRegistry);
+        droppedPoints = Counter.builder("athlos.ingestion.dropped")
+                .description("Accepted points discarded because their run was paused or ended before they were applied")
+                .register(meterRegistry);
+        Gauge.builder("athlos.ingestion.queue.depth", this, RunPointIngestionPipeline::getQueueDepth)
+                .description("Point submissions waiting across all partitions")
+                .register(meterRegistry);
+
+        for (int i = 0; i < partitionCount; i++) {
+            BlockingQueue<Submission> queue = new ArrayBlockingQueue<>(queueCapacity);
+            partitions.add(queue);
+            Thread consumer = new Thread(() -> consume(queue), "run-ingest-" + i);
+            consumer.setDaemon(true);
+            consumers.add(consumer);
+            consumer.start();
+        }
+    }
+
+    // Queues the points of one run; throws IngestionSaturatedException when its partition is full
+    public void submit(Long runId, List<RunPoint> points) {
+        inFlight.compute(runId, (id, pending) -> {
+            InFlight updated = pending != null ? pending : new InFlight();
+            updated.count++;
+            return updated;
+        });
+        if (!partitionFor(runId).offer(new Submission(runId, points, System.nanoTime()))) {
+            release(runId);
+            rejected.increment();
+            throw new IngestionSaturatedException("Point ingestion is saturated, retry shortly");
+        }
+    }
+
+    // Waits until every point accepted for the run so far has been applied, e.g. before the run is
+    // paused or ended; false when some are still queued after the timeout
+    public boolean awaitApplied(Long runId, long timeoutMs) {
+        InFlight pending = inFlight.get(runId);
+        if (pending == null) {
+            return true;
+        }
+        try {
+            pending.drained.get(timeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            logger.warn("Points of run {} still queued after {}ms", runId, timeoutMs);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public int getQueueDepth() {
+        int depth = 0;
+        for (BlockingQueue<Submission> queue : partitions) {
+            depth += queue.size();
+        }
+        return depth;
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        consumers.forEach(Thread::interrupt);
+        for (Thread consumer : consumers) {
+            try {
+                consumer.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Apply whatever was still queued, then write every session out
+        for (BlockingQueue<Submission> queue : partitions) {
+            List<Submission> remaining = new ArrayList<>();
+            queue.drainTo(remaining);
+            if (!remaining.isEmpty()) {
+                apply(remaining);
+            }
+        }
+        activeRunRegistry.flushAll();
+    }
+
+    private void consume(BlockingQueue<Submission> queue) {
+        List<Submission> batch = new ArrayList<>(MAX_DRAIN);
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_DRAIN - 1);
+            try {
+                apply(batch);
+            } catch (Throwable t) {
+                // Keep the partition's only consumer alive; apply has already released what it could
+                logger.error("Applying {} point submissions failed", batch.size(), t);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void apply(List<Submission> batch) {
+        // Merge per run, keeping arrival order, so each session is appended to once per drain
+        Map<Long, List<Submission>> byRun = new LinkedHashMap<>();
+        for (Submission submission : batch) {
+            byRun.computeIfAbsent(submission.runId, id -> new ArrayList<>()).add(submission);
+        }
+        for (Map.Entry<Long, List<Submission>> entry : byRun.entrySet()) {
+            Long runId = entry.getKey();
+            List<Submission> submissions = entry.getValue();
+            List<RunPoint> points = new ArrayList<>();
+            submissions.forEach(submission -> points.addAll(submission.points));
+            try {
+                applyToSession(runId, points);
+            } catch (Throwable t) {
+                failedPoints.increment(points.size());
+                logger.error("Failed to apply {} points to run {}", points.size(), runId, t);
+            } finally {
+                long now = System.nanoTime();
+                for (Submission submission : submissions) {
+                    lagTimer.record(now - submission.acceptedAtNanos, TimeUnit.NANOSECONDS);
+                    release(runId);
+                }
+            }
+        }
+    }
+
+    private void applyToSession(Long runId, List<RunPoint> points) {
+        RunSession session = activeRunRegistry.sessionFor(runId);
+        double distanceDelta = session != null ? session.append(points) : Double.NaN;
+        while (session != null && Double.isNaN(distanceDelta)) {
+            // The session was closed by an idle flush; continue on its flushed state unless the run
+            // has been paused or ended since
+            session = activeRunRegistry.sessionFor(runId);
+            distanceDelta = session != null ? session.append(points) : Double.NaN;
+        }
+        if (session == null) {
+            droppedPoints.increment(points.size());
+            logger.debug("Dropped {} points of run {}, which is no longer active", points.size(), runId);
+            return;
+        }
+        int stepsDelta = 0;
+        for (RunPoint point : points) {
+            stepsDelta += point.getStepCount() != null ? point.getStepCount() : 0;
+        }
+        leaderboardEngine.recordProgress(session.getUserId(), session.getStartTime(), stepsDelta, distanceDelta);
+        try {
+            activeRunRegistry.flushIfDue(session);
+        } catch (RuntimeException e) {
+            // The points stay in the session and go out with the next flush
+            logger.warn("Flushing run {} failed, will retry", runId, e);
+        }
+    }
+
+    private BlockingQueue<Submission> partitionFor(Long runId) {
+        return partitions.get(Math.floorMod(runId.hashCode(), partitions.size()));
+    }
+
+    private void release(Long runId) {
+        inFlight.computeIfPresent(runId, (id, pending) -> {
+            if (--pending.count > 0) {
+                return pending;
+            }
+            pending.drained.complete(null);
+            return null;
+        });
+    }
+
+    // Only read and written inside inFlight.compute, which serialises access per run
+    private static final class InFlight {
+        private int count;
+        private final CompletableFuture<Void> drained = new CompletableFuture<>();
+    }
+
+    private static final class Submission {
+        private final Long runId;
+        private final List<RunPoint> points;
+        private final long acceptedAtNanos;
+
+        private Submission(Long runId, List<RunPoint> points, long acceptedAtNanos) {
+            this.runId = runId;
+            this.points = points;
+            this.acceptedAtNanos = acceptedAtNanos;
+        }
+    }
+}
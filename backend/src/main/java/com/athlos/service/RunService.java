@@ -2,19 +2,40 @@ package com.athlos.service;
 
 import com.athlos.dto.PointDTO;
 import com.athlos.dto.RunDTO;
+import com.athlos.dto.RunPageDTO;
+import com.athlos.dto.RunPathDTO;
+import com.athlos.dto.RunPointBatchAckDTO;
+import com.athlos.dto.RunPointDTO;
+import com.athlos.dto.RunSummaryDTO;
 import com.athlos.entity.Run;
 import com.athlos.entity.RunPoint;
 import com.athlos.entity.User;
+import com.athlos.repository.RunPointArchiveRepository;
 import com.athlos.repository.RunRepository;
+import com.athlos.repository.RunSummary;
 import com.athlos.repository.UserRepository;
+import com.athlos.util.PolylineEncoder;
+import com.athlos.util.RunPointCodec;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.locationtech.jts.geom.*;
+import org.locationtech.jts.simplify.DouglasPeuckerSimplifier;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 public class RunService {
@@ -25,7 +46,33 @@ public class RunService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private RunPointIngestionPipeline runPointIngestionPipeline;
+    
+    @Autowired
+    private ActiveRunRegistry activeRunRegistry;
+    
+    @Autowired
+    private TerritoryService territoryService;
+    
+    @Autowired
+    private RunPointArchiveRepository runPointArchiveRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // Device timestamps decide the run_points partition, so they must stay near server time
+    @Value("${runs.ingestion.max-clock-skew-ms:300000}")
+    private long maxClockSkewMs;
+    
+    @Value("${runs.ingestion.max-point-age-ms:86400000}")
+    private long maxPointAgeMs;
+    
+    private static final int MAX_POINT_BATCH_SIZE = 1000;
+    private static final long POINT_DRAIN_TIMEOUT_MS = 2000;
+    
     private final GeometryFactory geometryFactory = new GeometryFactory();
+
     
     public RunDTO startRun(Long userId) {
         User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
@@ -33,29 +80,43 @@ public class RunService {
         // End any active runs first
         Optional<Run> activeRun = runRepository.findByUserAndIsActiveTrue(user);
         if (activeRun.isPresent()) {
-            endRun(activeRun.get().getId());
+            endRun(activeRun.get().getId(), PathFormat.POINTS);
         }
         
         Run run = new Run(user);
         run = runRepository.save(run);
-        return convertToDTO(run);
+        return convertToDTO(run, PathFormat.POINTS);
     }
     
-    public RunDTO pauseRun(Long runId) {
-        Run run = runRepository.findById(runId).orElseThrow(() -> new RuntimeException("Run not found"));
-        run.setIsActive(false);
-        run = runRepository.save(run);
-        return convertToDTO(run);
+    public RunDTO pauseRun(Long runId, PathFormat format) {
+        closeSession(runId);
+        try {
+            Run run = runRepository.findById(runId).orElseThrow(() -> new RuntimeException("Run not found"));
+            run.setIsActive(false);
+            run = runRepository.save(run);
+            return convertToDTO(run, format);
+        } finally {
+            activeRunRegistry.endClosing(runId);
+        }
     }
     
-    public RunDTO resumeRun(Long runId) {
+    public RunDTO resumeRun(Long runId, PathFormat format) {
         Run run = runRepository.findById(runId).orElseThrow(() -> new RuntimeException("Run not found"));
         run.setIsActive(true);
         run = runRepository.save(run);
-        return convertToDTO(run);
+        return convertToDTO(run, format);
     }
     
-    public RunDTO endRun(Long runId) {
+    public RunDTO endRun(Long runId, PathFormat format) {
+        closeSession(runId);
+        try {
+            return finishRun(runId, format);
+        } finally {
+            activeRunRegistry.endClosing(runId);
+        }
+    }
+    
+    private RunDTO finishRun(Long runId, PathFormat format) {
         Run run = runRepository.findById(runId).orElseThrow(() -> new RuntimeException("Run not found"));
         run.setEndTime(LocalDateTime.now());
         run.setIsActive(false);
@@ -64,100 +125,232 @@ public class RunService {
             run.setDurationSeconds(java.time.Duration.between(run.getStartTime(), run.getEndTime()).getSeconds());
         }
         
-        // Create claimed territory polygon from path
+        // Claim territory from the loops in the path, resolving overlaps with existing territories
         if (run.getPath() != null && run.getPath().getNumPoints() > 2) {
-            Polygon territory = createTerritoryFromPath(run.getPath());
+            Polygon territory = territoryService.claimTerritory(run, run.getPath());
             run.setClaimedTerritory(territory);
         }
         
         run = runRepository.save(run);
-        return convertToDTO(run);
+        return convertToDTO(run, format);
     }
     
-    public RunDTO addRunPoint(Long runId, Double latitude, Double longitude, Integer stepCount) {
-        Run run = runRepository.findById(runId).orElseThrow(() -> new RuntimeException("Run not found"));
-        
+    public RunPointBatchAckDTO addRunPoint(Long runId, Double latitude, Double longitude, Integer stepCount) {
+        if (stepCount != null && stepCount < 0) {
+            throw new IllegalArgumentException("Step count must not be negative");
+        }
         Point location = geometryFactory.createPoint(new Coordinate(longitude, latitude));
-        RunPoint runPoint = new RunPoint(run, location, LocalDateTime.now());
+        RunPoint runPoint = new RunPoint(null, location, LocalDateTime.now());
         runPoint.setStepCount(stepCount);
+        return enqueue(runId, List.of(runPoint));
+    }
+    
+    public RunPointBatchAckDTO addRunPoints(Long runId, List<RunPointDTO> points) {
+        if (points == null || points.isEmpty() || points.size() > MAX_POINT_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch must contain between 1 and " + MAX_POINT_BATCH_SIZE + " points");
+        }
         
-        if (run.getRunPoints() == null) {
-            run.setRunPoints(new ArrayList<>());
+        LocalDateTime receivedAt = LocalDateTime.now();
+        List<RunPoint> runPoints = new ArrayList<>(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            RunPointDTO point = points.get(i);
+            if (point.getLatitude() == null || point.getLongitude() == null) {
+                throw new IllegalArgumentException("Point " + i + " is missing coordinates");
+            }
+            if (point.getStepCount() != null && point.getStepCount() < 0) {
+                throw new IllegalArgumentException("Point " + i + " has a negative step count");
+            }
+            if (point.getTimestamp() != null
+                    && (point.getTimestamp().isAfter(receivedAt.plusNanos(maxClockSkewMs * 1_000_000L))
+                        || point.getTimestamp().isBefore(receivedAt.minusNanos(maxPointAgeMs * 1_000_000L)))) {
+                throw new IllegalArgumentException("Point " + i + " has a timestamp too far from server time; "
+                        + "check the device clock or omit the timestamp");
+            }
+            Point location = geometryFactory.createPoint(new Coordinate(point.getLongitude(), point.getLatitude()));
+            RunPoint runPoint = new RunPoint(null, location,
+                    point.getTimestamp() != null ? point.getTimestamp() : receivedAt);
+            runPoint.setStepCount(point.getStepCount());
+            runPoints.add(runPoint);
+        }
+        return enqueue(runId, runPoints);
+    }
+    
+    // One page of run summaries, newest first; pass the returned cursor to get the next page
+    public RunPageDTO getUserRuns(Long userId, String cursor, int limit) {
+        if (!userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        // One extra row tells whether another page follows
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<RunSummary> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = runRepository.findSummariesByUser(userId, page);
+        } else {
+            RunCursor position = RunCursor.decode(cursor);
+            rows = runRepository.findSummariesByUserBefore(userId, position.startTime, position.id, page);
         }
-        run.getRunPoints().add(runPoint);
         
-        // Update path
-        updateRunPath(run);
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            RunSummary last = rows.get(limit - 1);
+            nextCursor = new RunCursor(last.getStartTime(), last.getId()).encode();
+        }
+        List<RunSummaryDTO> runs = rows.stream()
+                .map(row -> convertToDTO(row, userId))
+                .collect(Collectors.toList());
+        return new RunPageDTO(runs, nextCursor);
+    }
+    
+    // maxPoints downsamples the path to at most that many points
+    public RunPathDTO getRunPath(Long runId, PathFormat format, Integer maxPoints) {
+        Run run = runRepository.findById(runId).orElseThrow(() -> new RuntimeException("Run not found"));
+        LineString path = currentPath(run);
         
-        // Update total steps
-        if (run.getTotalSteps() == null) {
-            run.setTotalSteps(0);
+        RunPathDTO dto = new RunPathDTO();
+        dto.setRunId(runId);
+        dto.setFormat(format.getPath());
+        dto.setTotalPoints(path != null ? path.getNumPoints() : 0);
+        if (path == null) {
+            dto.setReturnedPoints(0);
+            if (format == PathFormat.POLYLINE) {
+                dto.setPolyline("");
+            } else {
+                dto.setPoints(new ArrayList<>());
+            }
+            return dto;
         }
-        run.setTotalSteps(run.getTotalSteps() + (stepCount != null ? stepCount : 0));
         
-        run = runRepository.save(run);
-        return convertToDTO(run);
+        if (maxPoints != null && path.getNumPoints() > maxPoints) {
+            path = downsample(path, maxPoints);
+        }
+        dto.setReturnedPoints(path.getNumPoints());
+        if (format == PathFormat.POLYLINE) {
+            dto.setPolyline(PolylineEncoder.encode(path.getCoordinateSequence()));
+        } else {
+            dto.setPoints(toPoints(path.getCoordinateSequence()));
+        }
+        return dto;
     }
     
-    public List<RunDTO> getUserRuns(Long userId) {
-        User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
-        return runRepository.findByUserOrderByStartTimeDesc(user)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(java.util.stream.Collectors.toList());
+    // Every recorded point of a run, whether still in run_points or already compacted into the run
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public List<RunPointDTO> getRunPoints(Long runId) {
+        if (!runRepository.existsById(runId)) {
+            throw new RuntimeException("Run not found");
+        }
+        // One snapshot for both reads, so a compaction committing in between is seen entirely or not at all
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<RunPoint> points = new ArrayList<>();
+        byte[] compacted = runPointArchiveRepository.findCompacted(runId);
+        if (compacted != null) {
+            points.addAll(RunPointCodec.decode(compacted, geometryFactory));
+        }
+        List<RunPoint> rows = runPointArchiveRepository.findRows(runId).getPoints();
+        points.addAll(rows);
+        points.sort(Comparator.comparing(RunPoint::getTimestamp));
+        // Tagged by where the points came from, to compare reads before and after compaction
+        String source = compacted == null ? "rows" : rows.isEmpty() ? "compacted" : "mixed";
+        sample.stop(Timer.builder("athlos.runs.points.read")
+                .description("Time to load all points of a run")
+                .tag("source", source)
+                .register(meterRegistry));
+        return points.stream()
+                .map(point -> new RunPointDTO(point.getLocation().getY(), point.getLocation().getX(),
+                        point.getStepCount(), point.getTimestamp())) // y=lat, x=lon
+                .collect(Collectors.toList());
     }
     
-    public Optional<RunDTO> getActiveRun(Long userId) {
+    public Optional<RunDTO> getActiveRun(Long userId, PathFormat format) {
         User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
         return runRepository.findByUserAndIsActiveTrue(user)
-                .map(this::convertToDTO);
+                .map(run -> convertToDTO(run, format));
     }
     
-    private void updateRunPath(Run run) {
-        if (run.getRunPoints() != null && !run.getRunPoints().isEmpty()) {
-            Coordinate[] coordinates = run.getRunPoints().stream()
-                    .map(rp -> rp.getLocation().getCoordinate())
-                    .toArray(Coordinate[]::new);
-            
-            LineString path = geometryFactory.createLineString(coordinates);
-            run.setPath(path);
+    // Stops new sessions for the run, lets its queued points land and flushes the live session, so
+    // the entity loaded afterwards carries the final path and totals. Callers call endClosing once
+    // the run is saved; on failure the run is left as it was.
+    private void closeSession(Long runId) {
+        activeRunRegistry.beginClosing(runId);
+        try {
+            if (!runPointIngestionPipeline.awaitApplied(runId, POINT_DRAIN_TIMEOUT_MS)) {
+                throw new IllegalStateException("Points of run " + runId + " are still being applied, retry shortly");
+            }
+            activeRunRegistry.close(runId);
+        } catch (RuntimeException e) {
+            activeRunRegistry.endClosing(runId);
+            throw e;
         }
     }
     
-    private Polygon createTerritoryFromPath(LineString path) {
-        // Create a simple polygon by connecting the path points
-        // In a real implementation, you might want more sophisticated territory creation
-        Coordinate[] coords = path.getCoordinates();
-        if (coords.length < 3) {
-            return null;
+    // Points are applied to the session by RunPointIngestionPipeline; the totals in the ack are
+    // those of the session when the points were accepted, not yet including them
+    private RunPointBatchAckDTO enqueue(Long runId, List<RunPoint> runPoints) {
+        Optional<RunSession> session = activeRunRegistry.find(runId);
+        if (session.isEmpty()) {
+            Run run = runRepository.findById(runId).orElseThrow(() -> new RuntimeException("Run not found"));
+            if (!Boolean.TRUE.equals(run.getIsActive()) || run.getEndTime() != null) {
+                throw new IllegalStateException("Run " + runId + " is not active");
+            }
         }
-        
-        // Create a simple rectangular territory around the path
-        double minX = Double.MAX_VALUE, maxX = Double.MIN_VALUE;
-        double minY = Double.MAX_VALUE, maxY = Double.MIN_VALUE;
-        
-        for (Coordinate coord : coords) {
-            minX = Math.min(minX, coord.x);
-            maxX = Math.max(maxX, coord.x);
-            minY = Math.min(minY, coord.y);
-            maxY = Math.max(maxY, coord.y);
+        if (activeRunRegistry.isClosing(runId)) {
+            throw new IllegalStateException("Run " + runId + " is being paused or ended");
         }
-        
-        // Add some buffer around the path
-        double buffer = 0.001; // Approximately 100m buffer
-        Coordinate[] territoryCoords = {
-            new Coordinate(minX - buffer, minY - buffer),
-            new Coordinate(maxX + buffer, minY - buffer),
-            new Coordinate(maxX + buffer, maxY + buffer),
-            new Coordinate(minX - buffer, maxY + buffer),
-            new Coordinate(minX - buffer, minY - buffer) // Close the polygon
-        };
-        
-        LinearRing ring = geometryFactory.createLinearRing(territoryCoords);
-        return geometryFactory.createPolygon(ring);
+        runPointIngestionPipeline.submit(runId, runPoints);
+        return new RunPointBatchAckDTO(runId, runPoints.size(),
+                session.map(RunSession::getTotalSteps).orElse(null),
+                session.map(RunSession::getDistanceMeters).orElse(null));
+    }
+    
+    // Douglas-Peucker with the smallest tolerance (found by bisection) that fits the point budget
+    private LineString downsample(LineString path, int maxPoints) {
+        Envelope envelope = path.getEnvelopeInternal();
+        double low = 0.0;
+        double high = Math.max(envelope.getWidth(), envelope.getHeight());
+        // At the full extent only the end points are left, which always fits
+        LineString best = (LineString) DouglasPeuckerSimplifier.simplify(path, high);
+        for (int i = 0; i < 24; i++) {
+            double tolerance = (low + high) / 2;
+            LineString candidate = (LineString) DouglasPeuckerSimplifier.simplify(path, tolerance);
+            if (candidate.getNumPoints() <= maxPoints) {
+                best = candidate;
+                high = tolerance;
+            } else {
+                low = tolerance;
+            }
+        }
+        return best;
     }
     
-    private RunDTO convertToDTO(Run run) {
+    // Live runs are read from their session; finished runs from the stored geometry
+    private LineString currentPath(Run run) {
+        return activeRunRegistry.find(run.getId())
+                .map(session -> session.currentPath(geometryFactory))
+                .orElse(run.getPath());
+    }
+    
+    private RunSummaryDTO convertToDTO(RunSummary row, Long userId) {
+        RunSummaryDTO dto = new RunSummaryDTO();
+        dto.setId(row.getId());
+        dto.setUserId(userId);
+        dto.setStartTime(row.getStartTime());
+        dto.setEndTime(row.getEndTime());
+        dto.setDurationSeconds(row.getDurationSeconds());
+        dto.setTotalSteps(row.getTotalSteps());
+        dto.setDistanceMeters(row.getDistanceMeters());
+        dto.setIsActive(row.getIsActive());
+        if (row.getDurationSeconds() != null && row.getDistanceMeters() != null && row.getDistanceMeters() > 0) {
+            dto.setPaceSecondsPerKm(row.getDurationSeconds() * 1000.0 / row.getDistanceMeters());
+        }
+        activeRunRegistry.find(row.getId()).ifPresent(session -> {
+            dto.setTotalSteps(session.getTotalSteps());
+            dto.setDistanceMeters(session.getDistanceMeters());
+            dto.setPaceSecondsPerKm(session.getPaceSecondsPerKm());
+        });
+        return dto;
+    }
+    
+    private RunDTO convertToDTO(Run run, PathFormat format) {
         RunDTO dto = new RunDTO();
         dto.setId(run.getId());
         dto.setUserId(run.getUser().getId());
@@ -167,28 +360,69 @@ public class RunService {
         dto.setTotalSteps(run.getTotalSteps());
         dto.setDistanceMeters(run.getDistanceMeters());
         dto.setIsActive(run.getIsActive());
+        if (run.getDurationSeconds() != null && run.getDistanceMeters() != null && run.getDistanceMeters() > 0) {
+            dto.setPaceSecondsPerKm(run.getDurationSeconds() * 1000.0 / run.getDistanceMeters());
+        }
+        
+        // The database lags a live session by up to one flush
+        activeRunRegistry.find(run.getId()).ifPresent(session -> {
+            dto.setTotalSteps(session.getTotalSteps());
+            dto.setDistanceMeters(session.getDistanceMeters());
+            dto.setPaceSecondsPerKm(session.getPaceSecondsPerKm());
+        });
         
-        // Convert path to DTO
-        if (run.getPath() != null) {
-            List<PointDTO> pathPoints = new ArrayList<>();
-            for (int i = 0; i < run.getPath().getNumPoints(); i++) {
-                Coordinate coord = run.getPath().getCoordinateN(i);
-                pathPoints.add(new PointDTO(coord.y, coord.x)); // y=lat, x=lon
+        // Geometry is written straight from the coordinate sequences in the requested format
+        LineString path = currentPath(run);
+        if (path != null) {
+            if (format == PathFormat.POLYLINE) {
+                dto.setPathPolyline(PolylineEncoder.encode(path.getCoordinateSequence()));
+            } else {
+                dto.setPath(toPoints(path.getCoordinateSequence()));
             }
-            dto.setPath(pathPoints);
         }
-        
-        // Convert claimed territory to DTO
         if (run.getClaimedTerritory() != null) {
-            List<PointDTO> territoryPoints = new ArrayList<>();
-            Coordinate[] coords = run.getClaimedTerritory().getExteriorRing().getCoordinates();
-            for (Coordinate coord : coords) {
-                territoryPoints.add(new PointDTO(coord.y, coord.x)); // y=lat, x=lon
+            CoordinateSequence ring = run.getClaimedTerritory().getExteriorRing().getCoordinateSequence();
+            if (format == PathFormat.POLYLINE) {
+                dto.setClaimedTerritoryPolyline(PolylineEncoder.encode(ring));
+            } else {
+                dto.setClaimedTerritory(toPoints(ring));
             }
-            dto.setClaimedTerritory(territoryPoints);
         }
         
         return dto;
     }
+    
+    private List<PointDTO> toPoints(CoordinateSequence coords) {
+        List<PointDTO> points = new ArrayList<>(coords.size());
+        for (int i = 0; i < coords.size(); i++) {
+            points.add(new PointDTO(coords.getY(i), coords.getX(i))); // y=lat, x=lon
+        }
+        return points;
+    }
+    
+    // Opaque page cursor: the (start_time, id) of the last run on the previous page
+    private static final class RunCursor {
+        private final LocalDateTime startTime;
+        private final Long id;
+        
+        private RunCursor(LocalDateTime startTime, Long id) {
+            this.startTime = startTime;
+            this.id = id;
+        }
+        
+        private String encode() {
+            String raw = startTime + "," + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+        
+        private static RunCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int comma = raw.indexOf(',');
+                return new RunCursor(LocalDateTime.parse(raw.substring(0, comma)), Long.parseLong(raw.substring(comma + 1)));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+    }
 }
-
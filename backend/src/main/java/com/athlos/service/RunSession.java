@@ -0,0 +1,154 @@
+package com.athlos.service;
+
+import com.athlos.entity.Run;
+import com.athlos.entity.RunPoint;
+import com.athlos.util.GeoMath;
+import com.athlos.util.PathAccumulator;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Live state of a run that is receiving points. Points and totals are applied here first and
+ * written to the database later by {@link ActiveRunRegistry}.
+ */
+class RunSession {
+
+    // Weight of the newest speed sample in the smoothed pace
+    private static final double SPEED_SMOOTHING = 0.2;
+
+    private final Long runId;
+    private final Long userId;
+    private final LocalDateTime startTime;
+    private final PathAccumulator path;
+    // Serialises flushes of this session so an older snapshot never overwrites a newer one
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private int totalSteps;
+    private double distanceMeters;
+    private double smoothedSpeedMps;
+    private RunPoint lastPoint;
+    private List<RunPoint> pendingPoints = new ArrayList<>();
+    private boolean dirty;
+    private boolean closed;
+    private long lastTouchedMillis = System.currentTimeMillis();
+
+    RunSession(Run run) {
+        this.runId = run.getId();
+        this.userId = run.getUser().getId();
+        this.startTime = run.getStartTime();
+        this.path = PathAccumulator.of(run.getPath());
+        this.totalSteps = run.getTotalSteps() != null ? run.getTotalSteps() : 0;
+        this.distanceMeters = run.getDistanceMeters() != null ? run.getDistanceMeters() : 0.0;
+        // A recovered session keeps measuring from the last flushed position
+        if (run.getPath() != null && !run.getPath().isEmpty()) {
+            this.lastPoint = new RunPoint(null, run.getPath().getEndPoint(), null);
+        }
+    }
+
+    Long getRunId() { return runId; }
+
+    Long getUserId() { return userId; }
+
+    LocalDateTime getStartTime() { return startTime; }
+
+    ReentrantLock getFlushLock() { return flushLock; }
+
+    synchronized int getTotalSteps() { return totalSteps; }
+
+    synchronized double getDistanceMeters() { return distanceMeters; }
+
+    synchronized RunPoint getLastPoint() { return lastPoint; }
+
+    // Pace from the exponentially smoothed speed, or null until the runner has moved
+    synchronized Double getPaceSecondsPerKm() {
+        return smoothedSpeedMps > 0 ? 1000.0 / smoothedSpeedMps : null;
+    }
+
+    synchronized int getPendingPointCount() { return pendingPoints.size(); }
+
+    synchronized long getLastTouchedMillis() { return lastTouchedMillis; }
+
+    synchronized boolean isClosed() { return closed; }
+
+    synchronized void close() { closed = true; }
+
+    synchronized void reopen() { closed = false; }
+
+    // Returns the distance the points added, or NaN once the session has been closed and callers
+    // need to fetch a fresh one. Distance and speed are accumulated per point without re-reading the path.
+    synchronized double append(List<RunPoint> points) {
+        if (closed) {
+            return Double.NaN;
+        }
+        double added = 0.0;
+        for (RunPoint point : points) {
+            if (lastPoint != null) {
+                double segment = GeoMath.haversineMeters(lastPoint.getLocation().getY(), lastPoint.getLocation().getX(),
+                        point.getLocation().getY(), point.getLocation().getX());
+                added += segment;
+                long elapsedMillis = lastPoint.getTimestamp() != null
+                        ? ChronoUnit.MILLIS.between(lastPoint.getTimestamp(), point.getTimestamp())
+                        : 0L;
+                if (elapsedMillis > 0) {
+                    double speed = segment * 1000.0 / elapsedMillis;
+                    point.setSpeedMps(speed);
+                    smoothedSpeedMps = smoothedSpeedMps == 0.0
+                            ? speed
+                            : SPEED_SMOOTHING * speed + (1 - SPEED_SMOOTHING) * smoothedSpeedMps;
+                }
+            }
+            path.append(point.getLocation().getX(), point.getLocation().getY());
+            totalSteps += point.getStepCount() != null ? point.getStepCount() : 0;
+            pendingPoints.add(point);
+            lastPoint = point;
+        }
+        distanceMeters += added;
+        dirty = true;
+        lastTouchedMillis = System.currentTimeMillis();
+        return added;
+    }
+
+    LineString currentPath(GeometryFactory geometryFactory) {
+        return path.toLineString(geometryFactory);
+    }
+
+    // Hands the unflushed state to the flusher, or null when nothing changed since the last flush
+    synchronized Snapshot drain(GeometryFactory geometryFactory) {
+        if (!dirty) {
+            return null;
+        }
+        Snapshot snapshot = new Snapshot(pendingPoints, totalSteps, distanceMeters, path.toLineString(geometryFactory));
+        pendingPoints = new ArrayList<>();
+        dirty = false;
+        return snapshot;
+    }
+
+    // Puts back the points of a failed flush ahead of anything appended since
+    synchronized void restore(Snapshot snapshot) {
+        List<RunPoint> points = new ArrayList<>(snapshot.points.size() + pendingPoints.size());
+        points.addAll(snapshot.points);
+        points.addAll(pendingPoints);
+        pendingPoints = points;
+        dirty = true;
+    }
+
+    static final class Snapshot {
+        final List<RunPoint> points;
+        final int totalSteps;
+        final double distanceMeters;
+        final LineString path;
+
+        private Snapshot(List<RunPoint> points, int totalSteps, double distanceMeters, LineString path) {
+            this.points = points;
+            this.totalSteps = totalSteps;
+            this.distanceMeters = distanceMeters;
+            this.path = path;
+        }
+    }
+}
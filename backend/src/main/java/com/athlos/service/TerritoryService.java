@@ -0,0 +1,239 @@
+package com.athlos.service;
+
+import com.athlos.dto.PointDTO;
+import com.athlos.dto.TerritoryDTO;
+import com.athlos.entity.Run;
+import com.athlos.entity.Territory;
+import com.athlos.entity.User;
+import com.athlos.repository.RunRepository;
+import com.athlos.repository.TerritoryClaimLockRepository;
+import com.athlos.repository.TerritoryRepository;
+import com.athlos.repository.UserRepository;
+import com.athlos.util.GeoMath;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.locationtech.jts.operation.polygonize.Polygonizer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Turns a finished run's path into territory: closed loops in the path become polygons, and
+ * the claim takes area away from overlapping territories of other runners (splitting them when
+ * the remainder falls apart) and merges with the runner's own overlapping territories.
+ */
+@Service
+public class TerritoryService {
+
+    // A path ending this close to its start is treated as a closed loop
+    private static final double LOOP_CLOSE_METERS = 50.0;
+    // Roughly 5m: smooths loop polygons and absorbs GPS jitter along shared edges
+    private static final double LOOP_BUFFER_DEGREES = 0.00005;
+    // Roughly 20m: width of the corridor claimed by a run without any loop
+    private static final double CORRIDOR_BUFFER_DEGREES = 0.0002;
+    // Slivers below roughly 10m x 10m are dropped instead of becoming territories
+    private static final double MIN_PART_AREA_DEGREES = 0.0001 * 0.0001;
+    // A fix this far from both neighbours, which are close to each other, is a GPS spike
+    private static final double MAX_SPIKE_METERS = 1000.0;
+
+    @Autowired
+    private TerritoryRepository territoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RunRepository runRepository;
+
+    @Autowired
+    private TerritoryClaimLockRepository territoryClaimLockRepository;
+
+    @Autowired
+    private TerritorySpatialIndex territorySpatialIndex;
+
+    @Autowired
+    private LeaderboardEngine leaderboardEngine;
+
+    @Autowired
+    private TerritoryTileService territoryTileService;
+
+    private final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
+
+    // Returns the largest polygon claimed by the run, or null when the path claims nothing
+    @Transactional
+    public Polygon claimTerritory(Run run, LineString path) {
+        Geometry claim = buildClaim(path);
+        if (claim == null) {
+            return null;
+        }
+        Long userId = run.getUser().getId();
+        User user = userRepository.getReferenceById(userId);
+        Run claimingRun = runRepository.getReferenceById(run.getId());
+
+        List<Territory> activated = new ArrayList<>();
+        List<Long> deactivated = new ArrayList<>();
+        List<Envelope> changedEnvelopes = new ArrayList<>();
+        Map<Long, Integer> territoryDeltas = new HashMap<>();
+
+        // The in-memory index only catches up after commit, so candidates are read, and locked,
+        // from the database once no other claim over the same cells is in flight
+        Envelope claimEnvelope = claim.getEnvelopeInternal();
+        territoryClaimLockRepository.lockCells(claimEnvelope);
+        List<Territory> candidates = territoryRepository.lockActiveInEnvelope(
+                claimEnvelope.getMinX(), claimEnvelope.getMinY(), claimEnvelope.getMaxX(), claimEnvelope.getMaxY());
+        for (Territory existing : candidates) {
+            if (!Boolean.TRUE.equals(existing.getIsActive()) || !existing.getPolygon().intersects(claim)) {
+                continue;
+            }
+            Long ownerId = existing.getUser().getId();
+            existing.setIsActive(false);
+            deactivated.add(existing.getId());
+            changedEnvelopes.add(existing.getPolygon().getEnvelopeInternal());
+            territoryDeltas.merge(ownerId, -1, Integer::sum);
+
+            if (ownerId.equals(userId)) {
+                // The runner's own overlapping territory is absorbed into the new claim
+                claim = claim.union(existing.getPolygon());
+            } else {
+                // Another runner keeps whatever the claim does not cover, possibly in several pieces
+                for (Polygon remainder : polygonParts(existing.getPolygon().difference(claim))) {
+                    activated.add(new Territory(existing.getUser(), existing.getRun(), remainder));
+                    territoryDeltas.merge(ownerId, 1, Integer::sum);
+                }
+            }
+        }
+
+        Polygon largest = null;
+        for (Polygon part : polygonParts(claim)) {
+            activated.add(new Territory(user, claimingRun, part));
+            territoryDeltas.merge(userId, 1, Integer::sum);
+            if (largest == null || part.getArea() > largest.getArea()) {
+                largest = part;
+            }
+        }
+        territoryRepository.saveAll(activated);
+        activated.forEach(territory -> changedEnvelopes.add(territory.getPolygon().getEnvelopeInternal()));
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                territorySpatialIndex.apply(activated, deactivated);
+                territoryTileService.invalidate(changedEnvelopes);
+                territoryDeltas.forEach(leaderboardEngine::adjustTerritories);
+            }
+        });
+        return largest;
+    }
+
+    // Active territories touching the viewport, answered from the in-memory index
+    public List<TerritoryDTO> getActiveTerritoriesInBoundingBox(double minLon, double minLat, double maxLon, double maxLat) {
+        Envelope envelope = new Envelope(minLon, maxLon, minLat, maxLat);
+        Geometry viewport = geometryFactory.toGeometry(envelope);
+        return territorySpatialIndex.query(envelope).stream()
+                .filter(territory -> territory.getPolygon().intersects(viewport))
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+    
+    private Geometry buildClaim(LineString path) {
+        if (path == null || path.getNumPoints() < 3) {
+            return null;
+        }
+        // Outliers would stretch the claim, and the cells it locks, over ground never covered
+        Coordinate[] coords = withoutOutliers(path.getCoordinates());
+        if (coords.length < 3) {
+            return null;
+        }
+        Coordinate start = coords[0];
+        Coordinate end = coords[coords.length - 1];
+        if (!start.equals2D(end) && GeoMath.haversineMeters(start.y, start.x, end.y, end.x) <= LOOP_CLOSE_METERS) {
+            coords = Arrays.copyOf(coords, coords.length + 1);
+            coords[coords.length - 1] = start;
+        }
+        LineString track = geometryFactory.createLineString(coords);
+
+        // Unioning a line with itself nodes it at every self-intersection, so each loop becomes a ring
+        Polygonizer polygonizer = new Polygonizer();
+        polygonizer.add(track.union());
+        @SuppressWarnings("unchecked")
+        List<Polygon> loops = new ArrayList<>(polygonizer.getPolygons());
+
+        Geometry claim = loops.isEmpty()
+                ? track.buffer(CORRIDOR_BUFFER_DEGREES)
+                : geometryFactory.buildGeometry(loops).union().buffer(LOOP_BUFFER_DEGREES);
+        return claim.isEmpty() ? null : claim;
+    }
+
+    // Drops fixes off the globe, then single-fix spikes: a fix far from its neighbours on both
+    // sides (or its only side, at either end) while those neighbours are close to each other
+    static Coordinate[] withoutOutliers(Coordinate[] coords) {
+        List<Coordinate> valid = Arrays.stream(coords)
+                .filter(c -> Math.abs(c.y) <= 90 && Math.abs(c.x) <= 180)
+                .collect(Collectors.toList());
+        List<Coordinate> kept = new ArrayList<>();
+        for (int i = 0; i < valid.size(); i++) {
+            Coordinate fix = valid.get(i);
+            Coordinate previous = kept.isEmpty() ? null : kept.get(kept.size() - 1);
+            Coordinate next = i + 1 < valid.size() ? valid.get(i + 1) : null;
+            boolean spike;
+            if (previous != null && next != null) {
+                spike = farApart(previous, fix) && farApart(fix, next) && !farApart(previous, next);
+            } else if (next != null) {
+                spike = farApart(fix, next) && i + 2 < valid.size() && !farApart(next, valid.get(i + 2));
+            } else {
+                spike = previous != null && farApart(previous, fix)
+                        && kept.size() >= 2 && !farApart(kept.get(kept.size() - 2), previous);
+            }
+            if (!spike) {
+                kept.add(fix);
+            }
+        }
+        return kept.toArray(new Coordinate[0]);
+    }
+
+    private static boolean farApart(Coordinate a, Coordinate b) {
+        return GeoMath.haversineMeters(a.y, a.x, b.y, b.x) > MAX_SPIKE_METERS;
+    }
+
+    private TerritoryDTO convertToDTO(TerritorySpatialIndex.IndexedTerritory territory) {
+        TerritoryDTO dto = new TerritoryDTO();
+        dto.setId(territory.getId());
+        dto.setUserId(territory.getUserId());
+        dto.setAreaSquareMeters(territory.getAreaSquareMeters());
+        dto.setClaimedAt(territory.getClaimedAt());
+        
+        List<PointDTO> points = new ArrayList<>();
+        for (Coordinate coord : territory.getPolygon().getExteriorRing().getCoordinates()) {
+            points.add(new PointDTO(coord.y, coord.x)); // y=lat, x=lon
+        }
+        dto.setPolygon(points);
+        return dto;
+    }
+    
+    private List<Polygon> polygonParts(Geometry geometry) {
+        List<Polygon> parts = new ArrayList<>();
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            Geometry part = geometry.getGeometryN(i);
+            if (part instanceof Polygon && part.getArea() >= MIN_PART_AREA_DEGREES) {
+                Polygon polygon = (Polygon) part;
+                polygon.setSRID(4326);
+                parts.add(polygon);
+            }
+        }
+        return parts;
+    }
+}
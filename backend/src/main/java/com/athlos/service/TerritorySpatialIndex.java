@@ -0,0 +1,123 @@
+package com.athlos.service;
+
+import com.athlos.entity.Territory;
+import com.athlos.repository.TerritoryRepository;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.index.quadtree.Quadtree;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory quadtree over the envelopes of all active territories. Unlike an STRtree it accepts
+ * inserts and removals after it has been queried, so claims update it in place.
+ */
+@Service
+public class TerritorySpatialIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(TerritorySpatialIndex.class);
+
+    @Autowired
+    private TerritoryRepository territoryRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Quadtree tree = new Quadtree();
+    private Map<Long, IndexedTerritory> byId = new HashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        Quadtree loadedTree = new Quadtree();
+        Map<Long, IndexedTerritory> loaded = new HashMap<>();
+        for (Territory territory : territoryRepository.findByIsActiveTrue()) {
+            IndexedTerritory indexed = IndexedTerritory.of(territory);
+            loaded.put(indexed.getId(), indexed);
+            loadedTree.insert(indexed.getPolygon().getEnvelopeInternal(), indexed);
+        }
+
+        lock.writeLock().lock();
+        try {
+            tree = loadedTree;
+            byId = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Territory index loaded {} active territories", loaded.size());
+    }
+
+    // Active territories whose envelope intersects the given envelope
+    public List<IndexedTerritory> query(Envelope envelope) {
+        lock.readLock().lock();
+        try {
+            List<IndexedTerritory> matches = new ArrayList<>();
+            for (Object candidate : tree.query(envelope)) {
+                IndexedTerritory territory = (IndexedTerritory) candidate;
+                if (territory.getPolygon().getEnvelopeInternal().intersects(envelope)) {
+                    matches.add(territory);
+                }
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void apply(List<Territory> activated, List<Long> deactivatedIds) {
+        lock.writeLock().lock();
+        try {
+            for (Long id : deactivatedIds) {
+                IndexedTerritory removed = byId.remove(id);
+                if (removed != null) {
+                    tree.remove(removed.getPolygon().getEnvelopeInternal(), removed);
+                }
+            }
+            for (Territory territory : activated) {
+                IndexedTerritory indexed = IndexedTerritory.of(territory);
+                byId.put(indexed.getId(), indexed);
+                tree.insert(indexed.getPolygon().getEnvelopeInternal(), indexed);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public static final class IndexedTerritory {
+        private final Long id;
+        private final Long userId;
+        private final Polygon polygon;
+        private final Double areaSquareMeters;
+        private final LocalDateTime claimedAt;
+
+        private IndexedTerritory(Long id, Long userId, Polygon polygon, Double areaSquareMeters, LocalDateTime claimedAt) {
+            this.id = id;
+            this.userId = userId;
+            this.polygon = polygon;
+            this.areaSquareMeters = areaSquareMeters;
+            this.claimedAt = claimedAt;
+        }
+
+        static IndexedTerritory of(Territory territory) {
+            return new IndexedTerritory(territory.getId(), territory.getUser().getId(), territory.getPolygon(),
+                    territory.getAreaSquareMeters(), territory.getClaimedAt());
+        }
+
+        public Long getId() { return id; }
+        public Long getUserId() { return userId; }
+        public Polygon getPolygon() { return polygon; }
+        public Double getAreaSquareMeters() { return areaSquareMeters; }
+        public LocalDateTime getClaimedAt() { return claimedAt; }
+    }
+}
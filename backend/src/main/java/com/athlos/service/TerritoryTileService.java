@@ -0,0 +1,255 @@
+package com.athlos.service;
+
+import com.athlos.util.MvtEncoder;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.CoordinateSequenceFilter;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.simplify.TopologyPreservingSimplifier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Renders active territories as Mapbox Vector Tiles in the Web Mercator tiling scheme. Geometry
+ * is clipped to the tile (plus a small buffer) and simplified in tile pixel space, so the vertex
+ * count follows the zoom level. Tiles are cached until a territory inside them changes; a render
+ * that overlaps an invalidation is served but not kept, since it may predate the change.
+ */
+@Service
+public class TerritoryTileService {
+
+    public static final int MAX_ZOOM = 22;
+
+    private static final String LAYER_NAME = "territories";
+    // Clip buffer around each tile, in tile units, so polygon edges do not show seams
+    private static final int TILE_BUFFER = 64;
+    // Douglas-Peucker tolerance in tile units (1/4096 of a tile per unit)
+    private static final double SIMPLIFY_TOLERANCE = 2.0;
+
+    @Autowired
+    private TerritorySpatialIndex territorySpatialIndex;
+
+    @Value("${territories.tiles.cache-size:4096}")
+    private long cacheSize;
+
+    private final GeometryFactory geometryFactory = new GeometryFactory();
+    private Cache<TileKey, byte[]> tileCache;
+    // Bumped by every invalidation, before any tile is dropped
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        tileCache = Caffeine.newBuilder().maximumSize(cacheSize).build();
+    }
+
+    public byte[] getTile(int z, int x, int y) {
+        if (z < 0 || z > MAX_ZOOM || x < 0 || y < 0 || x >= (1 << z) || y >= (1 << z)) {
+            throw new IllegalArgumentException("Tile " + z + "/" + x + "/" + y + " does not exist");
+        }
+        TileKey key = new TileKey(z, x, y);
+        byte[] cached = tileCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long renderedAt = generation.get();
+        byte[] tile = renderTile(key);
+        if (generation.get() == renderedAt) {
+            tileCache.put(key, tile);
+            // An invalidation that started between the check and the put may already have looked
+            // for this tile; drop it again rather than keep a possibly stale render
+            if (generation.get() != renderedAt) {
+                tileCache.asMap().remove(key, tile);
+            }
+        }
+        return tile;
+    }
+
+    // Drops the cached tiles whose area touches one of the changed envelopes, at every zoom
+    public void invalidate(Collection<Envelope> changed) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        generation.incrementAndGet();
+        for (int z = 0; z <= MAX_ZOOM; z++) {
+            for (Envelope envelope : changed) {
+                TileRange range = TileRange.covering(envelope, z);
+                if (range.size() > tileCache.estimatedSize()) {
+                    // A large change at a deep zoom covers more tiles than are cached; checking
+                    // the cached tiles of the remaining zooms is cheaper than visiting every key
+                    removeCachedFrom(z, changed);
+                    return;
+                }
+                for (int x = range.minX; x <= range.maxX; x++) {
+                    for (int y = range.minY; y <= range.maxY; y++) {
+                        tileCache.invalidate(new TileKey(z, x, y));
+                    }
+                }
+            }
+        }
+    }
+
+    private void removeCachedFrom(int minZoom, Collection<Envelope> changed) {
+        tileCache.asMap().keySet().removeIf(key -> key.z >= minZoom
+                && changed.stream().anyMatch(envelope -> TileRange.covering(envelope, key.z).contains(key)));
+    }
+
+    private byte[] renderTile(TileKey key) {
+        MvtEncoder encoder = new MvtEncoder(LAYER_NAME);
+        Envelope clipEnvelope = tileEnvelope(key.z, key.x, key.y, TILE_BUFFER);
+        Geometry clip = geometryFactory.toGeometry(clipEnvelope);
+
+        for (TerritorySpatialIndex.IndexedTerritory territory : territorySpatialIndex.query(clipEnvelope)) {
+            Geometry clipped = territory.getPolygon().intersection(clip);
+            if (clipped.isEmpty()) {
+                continue;
+            }
+            Geometry tileGeometry = clipped.copy();
+            tileGeometry.apply(new TileProjection(key, encoder.getExtent()));
+            tileGeometry.geometryChanged();
+            tileGeometry = TopologyPreservingSimplifier.simplify(tileGeometry, SIMPLIFY_TOLERANCE);
+
+            Map<String, Object> properties = new LinkedHashMap<>();
+            properties.put("userId", territory.getUserId());
+            properties.put("areaSquareMeters", territory.getAreaSquareMeters());
+            encoder.addPolygonFeature(territory.getId(), tileGeometry, properties);
+        }
+        return encoder.encode();
+    }
+
+    // Lon/lat envelope of a tile, grown by `buffer` tile units on every side
+    private static Envelope tileEnvelope(int z, int x, int y, int buffer) {
+        double n = 1 << z;
+        double pad = buffer / (double) MvtEncoder.DEFAULT_EXTENT;
+        double minLon = tileXToLon(x - pad, n);
+        double maxLon = tileXToLon(x + 1 + pad, n);
+        double maxLat = tileYToLat(y - pad, n);
+        double minLat = tileYToLat(y + 1 + pad, n);
+        return new Envelope(minLon, maxLon, minLat, maxLat);
+    }
+
+    private static double tileXToLon(double x, double n) {
+        return x / n * 360.0 - 180.0;
+    }
+
+    private static double tileYToLat(double y, double n) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * y / n))));
+    }
+
+    // Projects lon/lat coordinates in place into the tile's pixel space (y pointing down)
+    private static final class TileProjection implements CoordinateSequenceFilter {
+        private final double n;
+        private final int x;
+        private final int y;
+        private final int extent;
+
+        private TileProjection(TileKey key, int extent) {
+            this.n = 1 << key.z;
+            this.x = key.x;
+            this.y = key.y;
+            this.extent = extent;
+        }
+
+        @Override
+        public void filter(CoordinateSequence seq, int i) {
+            double worldX = lonToTileX(seq.getX(i), n);
+            double worldY = latToTileY(seq.getY(i), n);
+            seq.setOrdinate(i, CoordinateSequence.X, (worldX - x) * extent);
+            seq.setOrdinate(i, CoordinateSequence.Y, (worldY - y) * extent);
+        }
+
+        @Override
+        public boolean isDone() {
+            return false;
+        }
+
+        @Override
+        public boolean isGeometryChanged() {
+            return true;
+        }
+    }
+
+    // Tiles at one zoom whose buffered area touches an envelope
+    private static final class TileRange {
+        private final int minX;
+        private final int maxX;
+        private final int minY;
+        private final int maxY;
+
+        private TileRange(int minX, int maxX, int minY, int maxY) {
+            this.minX = minX;
+            this.maxX = maxX;
+            this.minY = minY;
+            this.maxY = maxY;
+        }
+
+        // Tile t spans [t - pad, t + 1 + pad] in world tile units, so it touches [a, b] when
+        // a - 1 - pad <= t <= b + pad
+        static TileRange covering(Envelope envelope, int z) {
+            int n = 1 << z;
+            double pad = TILE_BUFFER / (double) MvtEncoder.DEFAULT_EXTENT;
+            double westX = lonToTileX(envelope.getMinX(), n);
+            double eastX = lonToTileX(envelope.getMaxX(), n);
+            double northY = latToTileY(envelope.getMaxY(), n);
+            double southY = latToTileY(envelope.getMinY(), n);
+            return new TileRange(
+                    Math.max(0, (int) Math.ceil(westX - 1 - pad)), Math.min(n - 1, (int) Math.floor(eastX + pad)),
+                    Math.max(0, (int) Math.ceil(northY - 1 - pad)), Math.min(n - 1, (int) Math.floor(southY + pad)));
+        }
+
+        long size() {
+            if (maxX < minX || maxY < minY) {
+                return 0;
+            }
+            return (long) (maxX - minX + 1) * (maxY - minY + 1);
+        }
+
+        boolean contains(TileKey key) {
+            return key.x >= minX && key.x <= maxX && key.y >= minY && key.y <= maxY;
+        }
+    }
+
+    private static double lonToTileX(double lon, double n) {
+        return (lon + 180.0) / 360.0 * n;
+    }
+
+    private static double latToTileY(double lat, double n) {
+        double latRad = Math.toRadians(Math.max(-85.05112878, Math.min(85.05112878, lat)));
+        return (1 - Math.log(Math.tan(latRad) + 1 / Math.cos(latRad)) / Math.PI) / 2 * n;
+    }
+
+    private static final class TileKey {
+        private final int z;
+        private final int x;
+        private final int y;
+
+        private TileKey(int z, int x, int y) {
+            this.z = z;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof TileKey)) return false;
+            TileKey other = (TileKey) o;
+            return z == other.z && x == other.x && y == other.y;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(z, x, y);
+        }
+    }
+}
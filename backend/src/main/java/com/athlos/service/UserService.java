@@ -1,17 +1,27 @@
 package com.athlos.service;
 
+import com.athlos.dto.NearbyRunnerDTO;
 import com.athlos.dto.UserDTO;
+import com.athlos.dto.UserSearchPageDTO;
 import com.athlos.entity.User;
+import com.athlos.repository.NearbyUserRow;
 import com.athlos.repository.UserRepository;
+import com.athlos.repository.UserSearchRow;
 import com.athlos.service.PasswordEncoderService;
-import org.locationtech.jts.geom.Coordinate;
-import org.locationtech.jts.geom.GeometryFactory;
-import org.locationtech.jts.geom.Point;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -24,18 +34,58 @@ public class UserService {
     @Autowired
     private PasswordEncoderService passwordEncoderService;
     
-    private final GeometryFactory geometryFactory = new GeometryFactory();
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+    
+    @Autowired
+    private LeaderboardEngine leaderboardEngine;
+    
+    @Autowired
+    private LiveLocationService liveLocationService;
+    
+    // Substring matching needs at least one full trigram; shorter terms match name/email prefixes
+    private static final int MIN_SUBSTRING_SEARCH_LENGTH = 3;
+    // Type-ahead never pages this deep; bounds the OFFSET cost
+    private static final int MAX_SEARCH_OFFSET = 1000;
+    
+    @Value("${users.search.cache-ttl-ms:10000}")
+    private long searchCacheTtlMs;
+    
+    @Value("${users.search.cache-size:10000}")
+    private long searchCacheSize;
+    
+    private Cache<String, UserSearchPageDTO> searchCache;
+    
+    @PostConstruct
+    public void init() {
+        searchCache = Caffeine.newBuilder()
+                .maximumSize(searchCacheSize)
+                .expireAfterWrite(Duration.ofMillis(searchCacheTtlMs))
+                .build();
+    }
     
     public UserDTO createUser(String email, String password, String name) {
         User user = new User(email, passwordEncoderService.encodePassword(password), name);
         user = userRepository.save(user);
+        searchCache.invalidateAll();
         return convertToDTO(user);
     }
     
-    public Optional<UserDTO> authenticateUser(String email, String password) {
+    // Rate limited per client address and account before any hashing; throws LoginThrottledException
+    public Optional<UserDTO> authenticateUser(String email, String password, String clientAddress) {
+        loginRateLimiter.acquire(clientAddress, email);
         return userRepository.findByEmail(email)
                 .filter(user -> passwordEncoderService.matches(password, user.getPassword()))
-                .map(this::convertToDTO);
+                .map(user -> {
+                    // The work factor changed since this hash was stored; the raw password is only at hand now
+                    if (passwordEncoderService.needsRehash(user.getPassword())) {
+                        String rehashed = passwordEncoderService.encodePassword(password);
+                        if (userRepository.updatePassword(user.getId(), user.getPassword(), rehashed) > 0) {
+                            user.setPassword(rehashed);
+                        }
+                    }
+                    return convertToDTO(user);
+                });
     }
     
     public Optional<UserDTO> getUserById(Long id) {
@@ -58,24 +108,59 @@ public class UserService {
         
         user.setLastActive(LocalDateTime.now());
         user = userRepository.save(user);
+        leaderboardEngine.updateUserName(user.getId(), user.getName());
+        if (userDTO.getName() != null) {
+            searchCache.invalidateAll();
+        }
         return convertToDTO(user);
     }
     
+    // Applied to the live grid and fanned out right away; current_location is written behind in batches
     public void updateUserLocation(Long userId, Double latitude, Double longitude) {
-        User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
-        Point location = geometryFactory.createPoint(new Coordinate(longitude, latitude));
-        user.setCurrentLocation(location);
-        user.setLastActive(LocalDateTime.now());
-        userRepository.save(user);
+        if (!liveLocationService.isTracked(userId) && !userRepository.existsById(userId)) {
+            throw new RuntimeException("User not found");
+        }
+        liveLocationService.update(userId, latitude, longitude);
     }
     
-    public List<UserDTO> searchUsers(String searchTerm) {
-        return userRepository.findByNameOrEmailContainingIgnoreCase(searchTerm)
+    // Served from the live grid; until the grid has seen a full activity window, PostGIS answers instead
+    public List<NearbyRunnerDTO> findNearbyRunners(double latitude, double longitude, int k, double radiusMeters) {
+        if (liveLocationService.isWarm()) {
+            return liveLocationService.nearest(latitude, longitude, k, radiusMeters);
+        }
+        double radiusDegrees = radiusMeters / (111320.0 * Math.max(0.01, Math.cos(Math.toRadians(latitude))));
+        LocalDateTime activeSince = LocalDateTime.now().minusNanos(liveLocationService.getTtlMs() * 1_000_000L);
+        return userRepository.findNearestActive(latitude, longitude, radiusMeters, radiusDegrees, activeSince, k)
                 .stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
     
+    // Type-ahead search: names starting with the term first. Terms shorter than a trigram only match
+    // as prefixes, which the trigram index can still serve; pages are cached briefly per term
+    public UserSearchPageDTO searchUsers(String searchTerm, String cursor, int limit) {
+        String term = searchTerm.trim().toLowerCase(Locale.ROOT);
+        int offset = decodeSearchCursor(cursor);
+        if (term.isEmpty()) {
+            return new UserSearchPageDTO(new ArrayList<>(), null);
+        }
+        return searchCache.get(term + "|" + offset + "|" + limit, key -> {
+            String escaped = term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+            String pattern = term.length() < MIN_SUBSTRING_SEARCH_LENGTH ? escaped + "%" : "%" + escaped + "%";
+            // One extra row tells whether another page follows
+            List<UserSearchRow> rows = userRepository.searchByNameOrEmail(term, pattern, escaped + "%", limit + 1, offset);
+            String nextCursor = null;
+            if (rows.size() > limit && offset + limit < MAX_SEARCH_OFFSET) {
+                nextCursor = encodeSearchCursor(offset + limit);
+            }
+            List<UserDTO> users = rows.stream()
+                    .limit(limit)
+                    .map(this::convertToDTO)
+                    .collect(Collectors.toList());
+            return new UserSearchPageDTO(users, nextCursor);
+        });
+    }
+    
     public List<UserDTO> getAllUsers() {
         return userRepository.findAllOrderByLastActiveDesc()
                 .stream()
@@ -98,8 +183,49 @@ public class UserService {
             dto.setLatitude(user.getCurrentLocation().getY());
             dto.setLongitude(user.getCurrentLocation().getX());
         }
+        // A live location may not have been written to the database yet
+        liveLocationService.find(user.getId()).ifPresent(live -> {
+            dto.setLatitude(live.getLatitude());
+            dto.setLongitude(live.getLongitude());
+            if (dto.getLastActive() == null || live.getUpdatedAt().isAfter(dto.getLastActive())) {
+                dto.setLastActive(live.getUpdatedAt());
+            }
+        });
         
         return dto;
     }
+    
+    private UserDTO convertToDTO(UserSearchRow row) {
+        UserDTO dto = new UserDTO();
+        dto.setId(row.getId());
+        dto.setName(row.getName());
+        dto.setEmail(row.getEmail());
+        dto.setLastActive(row.getLastActive());
+        return dto;
+    }
+    
+    private static String encodeSearchCursor(int offset) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(String.valueOf(offset).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static int decodeSearchCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        try {
+            int offset = Integer.parseInt(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+            if (offset < 0 || offset > MAX_SEARCH_OFFSET) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return offset;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+    
+    private NearbyRunnerDTO convertToDTO(NearbyUserRow row) {
+        NearbyRunnerDTO dto = new NearbyRunnerDTO(row.getUserId(), row.getLatitude(), row.getLongitude(), row.getUpdatedAt());
+        dto.setDistanceMeters(row.getDistanceMeters());
+        return dto;
+    }
 }
-
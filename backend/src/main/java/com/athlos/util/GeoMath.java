@@ -0,0 +1,20 @@
+package com.athlos.util;
+
+// Allocation-free great-circle helpers for per-point distance and speed on the ingestion path
+public final class GeoMath {
+    
+    // Mean Earth radius (IUGG)
+    public static final double EARTH_RADIUS_METERS = 6_371_008.8;
+    
+    private GeoMath() {}
+    
+    public static double haversineMeters(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double sinHalfDeltaPhi = Math.sin((phi2 - phi1) / 2);
+        double sinHalfDeltaLambda = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+        double a = sinHalfDeltaPhi * sinHalfDeltaPhi
+                + Math.cos(phi1) * Math.cos(phi2) * sinHalfDeltaLambda * sinHalfDeltaLambda;
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+}
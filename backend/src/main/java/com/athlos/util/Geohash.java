@@ -0,0 +1,109 @@
+package com.athlos.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Standard base-32 geohash encoding. A precision-5 cell is roughly 4.9km x 4.9km at the equator.
+ */
+public final class Geohash {
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+    private Geohash() {}
+
+    public static String encode(double latitude, double longitude, int precision) {
+        double minLat = -90.0, maxLat = 90.0;
+        double minLon = -180.0, maxLon = 180.0;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int index = 0;
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (longitude >= mid) {
+                    index = (index << 1) | 1;
+                    minLon = mid;
+                } else {
+                    index = index << 1;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    index = (index << 1) | 1;
+                    minLat = mid;
+                } else {
+                    index = index << 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+            if (++bit == 5) {
+                hash.append(BASE32.charAt(index));
+                bit = 0;
+                index = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    // Cell bounds as {minLat, minLon, maxLat, maxLon}
+    public static double[] bounds(String hash) {
+        double minLat = -90.0, maxLat = 90.0;
+        double minLon = -180.0, maxLon = 180.0;
+        boolean evenBit = true;
+        for (int i = 0; i < hash.length(); i++) {
+            int index = BASE32.indexOf(hash.charAt(i));
+            if (index < 0) {
+                throw new IllegalArgumentException("Invalid geohash: " + hash);
+            }
+            for (int n = 4; n >= 0; n--) {
+                boolean set = ((index >> n) & 1) == 1;
+                if (evenBit) {
+                    double mid = (minLon + maxLon) / 2;
+                    if (set) minLon = mid; else maxLon = mid;
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (set) minLat = mid; else maxLat = mid;
+                }
+                evenBit = !evenBit;
+            }
+        }
+        return new double[] {minLat, minLon, maxLat, maxLon};
+    }
+
+    // Cells whose centres lie `ring` cells away (Chebyshev distance) from the given cell; ring 0 is the cell itself
+    public static List<String> ring(String hash, int ring) {
+        double[] b = bounds(hash);
+        double cellLat = b[2] - b[0];
+        double cellLon = b[3] - b[1];
+        double centreLat = (b[0] + b[2]) / 2;
+        double centreLon = (b[1] + b[3]) / 2;
+        List<String> cells = new ArrayList<>();
+        if (ring == 0) {
+            cells.add(hash);
+            return cells;
+        }
+        for (int dy = -ring; dy <= ring; dy++) {
+            for (int dx = -ring; dx <= ring; dx++) {
+                if (Math.max(Math.abs(dx), Math.abs(dy)) != ring) {
+                    continue;
+                }
+                double lat = centreLat + dy * cellLat;
+                if (lat <= -90.0 || lat >= 90.0) {
+                    continue;
+                }
+                double lon = centreLon + dx * cellLon;
+                // Wrap across the antimeridian
+                lon = ((lon + 180.0) % 360.0 + 360.0) % 360.0 - 180.0;
+                String neighbour = encode(lat, lon, hash.length());
+                if (!cells.contains(neighbour)) {
+                    cells.add(neighbour);
+                }
+            }
+        }
+        return cells;
+    }
+}
@@ -1,12 +1,23 @@
 package com.athlos.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Component
@@ -18,6 +29,59 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private long jwtExpirationMs;
 
+    // Recently verified tokens, keyed by their SHA-256 and dropped when the token expires
+    @Value("${jwt.cache.size:100000}")
+    private long cacheSize;
+
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    @PostConstruct
+    public void init() {
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, token.getExpiresAt().getTime() - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    // Checks signature and expiry with a single parse; a token seen before is answered from the cache.
+    // Invalid tokens are not cached, so they are re-parsed (and rejected) every time.
+    public Optional<VerifiedToken> verify(String token) {
+        String key = sha256(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            return cached.isExpired() ? Optional.empty() : Optional.of(cached);
+        }
+        Claims claims;
+        try {
+            claims = extractAllClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (claims.getSubject() == null || claims.getExpiration() == null) {
+            return Optional.empty();
+        }
+        Number userId = claims.get("uid", Number.class);
+        VerifiedToken verified = new VerifiedToken(claims.getSubject(),
+                userId != null ? userId.longValue() : null, claims.getExpiration());
+        verifiedTokens.put(key, verified);
+        return Optional.of(verified);
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -35,13 +99,8 @@ public class JwtUtil {
         return Jwts.parser().setSigningKey(jwtSecret.getBytes()).parseClaimsJws(token).getBody();
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
     public Boolean validateToken(String token, String username) {
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+        return verify(token).map(verified -> verified.getSubject().equals(username)).orElse(false);
     }
 
     public String generateToken(String username, Long userId) {
@@ -57,4 +116,34 @@ public class JwtUtil {
                 .signWith(SignatureAlgorithm.HS256, jwtSecret.getBytes())
                 .compact();
     }
+
+    private static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public static final class VerifiedToken {
+        private final String subject;
+        private final Long userId;
+        private final Date expiresAt;
+
+        private VerifiedToken(String subject, Long userId, Date expiresAt) {
+            this.subject = subject;
+            this.userId = userId;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getSubject() { return subject; }
+        public Long getUserId() { return userId; }
+        public Date getExpiresAt() { return expiresAt; }
+
+        // The cache evicts at expiry, but an entry may be read in the last moments before eviction runs
+        private boolean isExpired() {
+            return expiresAt.before(new Date());
+        }
+    }
 }
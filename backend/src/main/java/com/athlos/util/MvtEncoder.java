@@ -0,0 +1,236 @@
+package com.athlos.util;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.Polygon;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal Mapbox Vector Tile (spec v2) writer for a single layer of polygon features. Geometry
+ * must already be in tile coordinates (0..extent, y pointing down); it is snapped to the
+ * integer grid and wound as the spec requires. Only the protobuf subset MVT uses is implemented.
+ */
+public class MvtEncoder {
+
+    public static final int DEFAULT_EXTENT = 4096;
+
+    private static final int GEOM_TYPE_POLYGON = 3;
+    private static final int CMD_MOVE_TO = 1;
+    private static final int CMD_LINE_TO = 2;
+    private static final int CMD_CLOSE_PATH = 7;
+
+    private final String layerName;
+    private final int extent;
+    private final Map<String, Integer> keys = new LinkedHashMap<>();
+    private final Map<Object, Integer> values = new LinkedHashMap<>();
+    private final List<byte[]> features = new ArrayList<>();
+
+    public MvtEncoder(String layerName) {
+        this(layerName, DEFAULT_EXTENT);
+    }
+
+    public MvtEncoder(String layerName, int extent) {
+        this.layerName = layerName;
+        this.extent = extent;
+    }
+
+    public int getExtent() {
+        return extent;
+    }
+
+    // Property values may be String, Long/Integer or Double
+    public void addPolygonFeature(long id, Geometry tileGeometry, Map<String, Object> properties) {
+        List<Integer> commands = new ArrayList<>();
+        int[] cursor = new int[2];
+        for (int i = 0; i < tileGeometry.getNumGeometries(); i++) {
+            Geometry part = tileGeometry.getGeometryN(i);
+            if (!(part instanceof Polygon)) {
+                continue;
+            }
+            Polygon polygon = (Polygon) part;
+            // The exterior ring is only written if it survives snapping; its holes depend on it
+            if (writeRing(polygon.getExteriorRing(), true, commands, cursor)) {
+                for (int h = 0; h < polygon.getNumInteriorRing(); h++) {
+                    writeRing(polygon.getInteriorRingN(h), false, commands, cursor);
+                }
+            }
+        }
+        if (commands.isEmpty()) {
+            return;
+        }
+
+        ProtoWriter feature = new ProtoWriter();
+        feature.writeVarintField(1, id);
+        ProtoWriter tags = new ProtoWriter();
+        for (Map.Entry<String, Object> property : properties.entrySet()) {
+            if (property.getValue() == null) {
+                continue;
+            }
+            tags.writeVarint(keys.computeIfAbsent(property.getKey(), k -> keys.size()));
+            tags.writeVarint(values.computeIfAbsent(normalise(property.getValue()), v -> values.size()));
+        }
+        feature.writeBytesField(2, tags.toByteArray());
+        feature.writeVarintField(3, GEOM_TYPE_POLYGON);
+        ProtoWriter geometry = new ProtoWriter();
+        for (int command : commands) {
+            geometry.writeVarint(command & 0xFFFFFFFFL);
+        }
+        feature.writeBytesField(4, geometry.toByteArray());
+        features.add(feature.toByteArray());
+    }
+
+    public boolean isEmpty() {
+        return features.isEmpty();
+    }
+
+    public byte[] encode() {
+        ProtoWriter layer = new ProtoWriter();
+        layer.writeVarintField(15, 2);
+        layer.writeBytesField(1, layerName.getBytes(StandardCharsets.UTF_8));
+        for (byte[] feature : features) {
+            layer.writeBytesField(2, feature);
+        }
+        for (String key : keys.keySet()) {
+            layer.writeBytesField(3, key.getBytes(StandardCharsets.UTF_8));
+        }
+        for (Object value : values.keySet()) {
+            layer.writeBytesField(4, encodeValue(value));
+        }
+        layer.writeVarintField(5, extent);
+
+        ProtoWriter tile = new ProtoWriter();
+        tile.writeBytesField(3, layer.toByteArray());
+        return tile.toByteArray();
+    }
+
+    private boolean writeRing(LineString ring, boolean exterior, List<Integer> commands, int[] cursor) {
+        Coordinate[] coords = ring.getCoordinates();
+        // Snap to the tile grid, dropping repeated vertices and the closing vertex
+        int[] xs = new int[coords.length];
+        int[] ys = new int[coords.length];
+        int count = 0;
+        for (int i = 0; i < coords.length - 1; i++) {
+            int x = (int) Math.round(coords[i].x);
+            int y = (int) Math.round(coords[i].y);
+            if (count == 0 || x != xs[count - 1] || y != ys[count - 1]) {
+                xs[count] = x;
+                ys[count] = y;
+                count++;
+            }
+        }
+        while (count > 1 && xs[count - 1] == xs[0] && ys[count - 1] == ys[0]) {
+            count--;
+        }
+        if (count < 3) {
+            return false;
+        }
+
+        // Exterior rings need a positive surveyor's area in tile coordinates, holes a negative one
+        long doubledArea = 0;
+        for (int i = 0; i < count; i++) {
+            int j = (i + 1) % count;
+            doubledArea += (long) xs[i] * ys[j] - (long) xs[j] * ys[i];
+        }
+        if (doubledArea == 0) {
+            return false;
+        }
+        if ((doubledArea > 0) != exterior) {
+            reverse(xs, count);
+            reverse(ys, count);
+        }
+
+        commands.add(command(CMD_MOVE_TO, 1));
+        commands.add(zigZag(xs[0] - cursor[0]));
+        commands.add(zigZag(ys[0] - cursor[1]));
+        commands.add(command(CMD_LINE_TO, count - 1));
+        for (int i = 1; i < count; i++) {
+            commands.add(zigZag(xs[i] - xs[i - 1]));
+            commands.add(zigZag(ys[i] - ys[i - 1]));
+        }
+        commands.add(command(CMD_CLOSE_PATH, 1));
+        cursor[0] = xs[count - 1];
+        cursor[1] = ys[count - 1];
+        return true;
+    }
+
+    private static void reverse(int[] values, int count) {
+        for (int i = 0, j = count - 1; i < j; i++, j--) {
+            int tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+    }
+
+    private static int command(int id, int count) {
+        return (id & 0x7) | (count << 3);
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static Object normalise(Object value) {
+        if (value instanceof Integer) {
+            return ((Integer) value).longValue();
+        }
+        if (value instanceof Float) {
+            return ((Float) value).doubleValue();
+        }
+        return value;
+    }
+
+    private static byte[] encodeValue(Object value) {
+        ProtoWriter writer = new ProtoWriter();
+        if (value instanceof String) {
+            writer.writeBytesField(1, ((String) value).getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof Double) {
+            writer.writeFixed64Field(3, Double.doubleToLongBits((Double) value));
+        } else if (value instanceof Long) {
+            writer.writeVarintField(4, (Long) value);
+        } else {
+            writer.writeBytesField(1, String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        }
+        return writer.toByteArray();
+    }
+
+    private static final class ProtoWriter {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+
+        void writeVarintField(int field, long value) {
+            writeVarint(((long) field << 3));
+            writeVarint(value);
+        }
+
+        void writeFixed64Field(int field, long value) {
+            writeVarint(((long) field << 3) | 1);
+            for (int i = 0; i < 8; i++) {
+                out.write((int) (value >>> (8 * i)) & 0xFF);
+            }
+        }
+
+        void writeBytesField(int field, byte[] bytes) {
+            writeVarint(((long) field << 3) | 2);
+            writeVarint(bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+}
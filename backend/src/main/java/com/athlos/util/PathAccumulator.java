@@ -0,0 +1,69 @@
+package com.athlos.util;
+
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequence;
+
+import java.util.Arrays;
+
+/**
+ * Append-only buffer of x/y (lon/lat) pairs for a path that is still growing. Appends are
+ * amortised O(1) into a primitive array; the JTS {@link LineString} is only built on demand.
+ */
+public class PathAccumulator {
+
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private double[] xy;
+    private int size;
+
+    public PathAccumulator() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PathAccumulator(int initialCapacity) {
+        this.xy = new double[Math.max(2, initialCapacity * 2)];
+    }
+
+    // Seeds the buffer with an already persisted path, e.g. after a restart
+    public static PathAccumulator of(LineString path) {
+        int points = path != null ? path.getNumPoints() : 0;
+        PathAccumulator accumulator = new PathAccumulator(points + DEFAULT_CAPACITY);
+        for (int i = 0; i < points; i++) {
+            accumulator.append(path.getCoordinateN(i).x, path.getCoordinateN(i).y);
+        }
+        return accumulator;
+    }
+
+    public synchronized void append(double x, double y) {
+        if (size * 2 == xy.length) {
+            xy = Arrays.copyOf(xy, xy.length * 2);
+        }
+        xy[size * 2] = x;
+        xy[size * 2 + 1] = y;
+        size++;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized double getX(int index) {
+        return xy[index * 2];
+    }
+
+    public synchronized double getY(int index) {
+        return xy[index * 2 + 1];
+    }
+
+    // Returns null while the buffer is empty; a single point becomes a zero-length segment
+    public synchronized LineString toLineString(GeometryFactory geometryFactory) {
+        if (size == 0) {
+            return null;
+        }
+        double[] packed = size == 1
+                ? new double[] { xy[0], xy[1], xy[0], xy[1] }
+                : Arrays.copyOf(xy, size * 2);
+        return geometryFactory.createLineString(new PackedCoordinateSequence.Double(packed, 2, 0));
+    }
+}
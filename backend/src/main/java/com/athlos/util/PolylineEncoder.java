@@ -0,0 +1,38 @@
+package com.athlos.util;
+
+import org.locationtech.jts.geom.CoordinateSequence;
+
+/**
+ * Google encoded polyline format (precision 5), written straight from a JTS coordinate
+ * sequence with x as longitude and y as latitude.
+ */
+public final class PolylineEncoder {
+
+    private static final double FACTOR = 1e5;
+
+    private PolylineEncoder() {}
+
+    public static String encode(CoordinateSequence coordinates) {
+        StringBuilder encoded = new StringBuilder(coordinates.size() * 8);
+        long previousLat = 0;
+        long previousLon = 0;
+        for (int i = 0; i < coordinates.size(); i++) {
+            long lat = Math.round(coordinates.getY(i) * FACTOR);
+            long lon = Math.round(coordinates.getX(i) * FACTOR);
+            writeValue(encoded, lat - previousLat);
+            writeValue(encoded, lon - previousLon);
+            previousLat = lat;
+            previousLon = lon;
+        }
+        return encoded.toString();
+    }
+
+    private static void writeValue(StringBuilder out, long delta) {
+        long value = delta < 0 ? ~(delta << 1) : delta << 1;
+        while (value >= 0x20) {
+            out.append((char) ((0x20 | (value & 0x1f)) + 63));
+            value >>= 5;
+        }
+        out.append((char) (value + 63));
+    }
+}
@@ -0,0 +1,112 @@
+package com.athlos.util;
+
+import com.athlos.entity.RunPoint;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Packs a run's points into one blob: coordinates as 1e-7 degree fixed point and timestamps as
+ * epoch milliseconds, each delta-encoded against the previous point and written as zigzag varints.
+ * Step counts and speeds (mm/s) are written as varints offset by one, with 0 meaning null, so
+ * step counts must not be negative.
+ * A typical GPS fix takes 6-10 bytes instead of a full run_points row.
+ */
+public final class RunPointCodec {
+
+    private static final int VERSION = 1;
+    private static final double COORDINATE_FACTOR = 1e7;
+    private static final double SPEED_FACTOR = 1000.0;
+
+    private RunPointCodec() {}
+
+    // Points must be in the order they should be read back in, i.e. by timestamp
+    public static byte[] encode(List<RunPoint> points) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(points.size() * 8 + 8);
+        out.write(VERSION);
+        writeVarint(out, points.size());
+        long previousLat = 0;
+        long previousLon = 0;
+        long previousMillis = 0;
+        for (RunPoint point : points) {
+            if (point.getStepCount() != null && point.getStepCount() < 0) {
+                throw new IllegalArgumentException("Negative step count cannot be encoded: " + point.getStepCount());
+            }
+            long lat = Math.round(point.getLocation().getY() * COORDINATE_FACTOR);
+            long lon = Math.round(point.getLocation().getX() * COORDINATE_FACTOR);
+            long millis = point.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli();
+            writeSigned(out, lat - previousLat);
+            writeSigned(out, lon - previousLon);
+            writeSigned(out, millis - previousMillis);
+            writeVarint(out, point.getStepCount() != null ? point.getStepCount() + 1L : 0);
+            writeVarint(out, point.getSpeedMps() != null ? Math.max(0, Math.round(point.getSpeedMps() * SPEED_FACTOR)) + 1 : 0);
+            previousLat = lat;
+            previousLon = lon;
+            previousMillis = millis;
+        }
+        return out.toByteArray();
+    }
+
+    public static List<RunPoint> decode(byte[] data, GeometryFactory geometryFactory) {
+        int[] position = {0};
+        int version = data[position[0]++];
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported run point encoding version: " + version);
+        }
+        int count = (int) readVarint(data, position);
+        List<RunPoint> points = new ArrayList<>(count);
+        long lat = 0;
+        long lon = 0;
+        long millis = 0;
+        for (int i = 0; i < count; i++) {
+            lat += readSigned(data, position);
+            lon += readSigned(data, position);
+            millis += readSigned(data, position);
+            long steps = readVarint(data, position);
+            long speed = readVarint(data, position);
+            RunPoint point = new RunPoint(null,
+                    geometryFactory.createPoint(new Coordinate(lon / COORDINATE_FACTOR, lat / COORDINATE_FACTOR)),
+                    LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L),
+                            (int) Math.floorMod(millis, 1000L) * 1_000_000, ZoneOffset.UTC));
+            point.setStepCount(steps > 0 ? (int) (steps - 1) : null);
+            point.setSpeedMps(speed > 0 ? (speed - 1) / SPEED_FACTOR : null);
+            points.add(point);
+        }
+        return points;
+    }
+
+    private static void writeSigned(ByteArrayOutputStream out, long value) {
+        writeVarint(out, (value << 1) ^ (value >> 63));
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readSigned(byte[] data, int[] position) {
+        long value = readVarint(data, position);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long readVarint(byte[] data, int[] position) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            byte b = data[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+}
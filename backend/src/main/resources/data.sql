@@ -1,5 +1,4 @@
--- Initialize PostGIS extension
-CREATE EXTENSION IF NOT EXISTS postgis;
+-- Sample data for local testing; the schema itself is managed by Flyway (db/migration)
 
 -- Create sample users for testing (passwords are 'password123' hashed with BCrypt)
 INSERT INTO users (email, password, name, age, gender, daily_step_goal, created_at, last_active) VALUES
@@ -0,0 +1,58 @@
+-- Schema as previously generated by Hibernate (ddl-auto: update), plus the indexes kept in data.sql.
+-- Databases created that way are baselined at this version and start from V2.
+
+CREATE EXTENSION IF NOT EXISTS postgis;
+
+CREATE TABLE users (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email varchar(255) NOT NULL,
+    password varchar(255) NOT NULL,
+    name varchar(255) NOT NULL,
+    age integer,
+    gender varchar(255),
+    daily_step_goal integer,
+    current_location geometry(Point,4326),
+    created_at timestamp(6),
+    last_active timestamp(6),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE runs (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id bigint NOT NULL,
+    start_time timestamp(6),
+    end_time timestamp(6),
+    duration_seconds bigint,
+    total_steps integer,
+    distance_meters float(53),
+    path geometry(LineString,4326),
+    claimed_territory geometry(Polygon,4326),
+    is_active boolean,
+    compacted_points bytea,
+    CONSTRAINT fk_runs_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE run_points (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    run_id bigint NOT NULL,
+    location geometry(Point,4326),
+    timestamp timestamp(6),
+    step_count integer,
+    speed_mps float(53),
+    CONSTRAINT fk_run_points_run FOREIGN KEY (run_id) REFERENCES runs (id)
+);
+
+CREATE TABLE territories (
+    id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id bigint NOT NULL,
+    run_id bigint,
+    polygon geometry(Polygon,4326),
+    area_square_meters float(53),
+    claimed_at timestamp(6),
+    is_active boolean,
+    CONSTRAINT fk_territories_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_territories_run FOREIGN KEY (run_id) REFERENCES runs (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_users_current_location ON users USING GIST (current_location);
+CREATE INDEX IF NOT EXISTS idx_run_points_run_id ON run_points (run_id, timestamp);
@@ -0,0 +1,121 @@
+-- runs and run_points become range partitioned by month on start_time / timestamp, so queries
+-- over a time window only touch the partitions of that window. A partitioned table's primary
+-- key has to include the partition key, so nothing can reference runs(id) any more: the foreign
+-- keys from run_points and territories to runs are dropped and the application keeps them
+-- consistent. Future partitions are created by PartitionMaintenanceJob.
+
+-- Creates the monthly partitions of parent covering from_month through to_month, named
+-- <parent>_yYYYYmMM. A month whose rows already sit in the default partition is skipped with a
+-- warning rather than failing the whole call.
+CREATE OR REPLACE FUNCTION create_monthly_partitions(parent text, from_month date, to_month date)
+RETURNS integer LANGUAGE plpgsql AS $$
+DECLARE
+    month date := date_trunc('month', from_month)::date;
+    partition_name text;
+    created integer := 0;
+BEGIN
+    WHILE month <= to_month LOOP
+        partition_name := format('%s_y%sm%s', parent, to_char(month, 'YYYY'), to_char(month, 'MM'));
+        IF to_regclass(partition_name) IS NULL THEN
+            BEGIN
+                EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                               partition_name, parent, month, (month + interval '1 month')::date);
+                created := created + 1;
+            EXCEPTION WHEN check_violation THEN
+                RAISE WARNING 'Partition % not created: rows for that month are in the default partition', partition_name;
+            END;
+        END IF;
+        month := (month + interval '1 month')::date;
+    END LOOP;
+    RETURN created;
+END
+$$;
+
+-- Added by ddl-auto on databases that predate V1 only if they ran the compaction change
+ALTER TABLE runs ADD COLUMN IF NOT EXISTS compacted_points bytea;
+
+-- Foreign keys into runs, whatever Hibernate named them on databases created by ddl-auto
+DO $$
+DECLARE
+    fk record;
+BEGIN
+    FOR fk IN SELECT conrelid::regclass AS table_name, conname FROM pg_constraint
+              WHERE contype = 'f' AND confrelid = 'runs'::regclass LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', fk.table_name, fk.conname);
+    END LOOP;
+END
+$$;
+
+-- The old tables are kept until the copy below; free up the names of their keys and id sequences
+ALTER TABLE runs RENAME TO runs_unpartitioned;
+ALTER TABLE run_points RENAME TO run_points_unpartitioned;
+ALTER INDEX IF EXISTS runs_pkey RENAME TO runs_unpartitioned_pkey;
+ALTER INDEX IF EXISTS run_points_pkey RENAME TO run_points_unpartitioned_pkey;
+ALTER TABLE runs_unpartitioned ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE runs_unpartitioned ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE run_points_unpartitioned ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE run_points_unpartitioned ALTER COLUMN id DROP DEFAULT;
+DROP SEQUENCE IF EXISTS runs_id_seq;
+DROP SEQUENCE IF EXISTS run_points_id_seq;
+
+CREATE SEQUENCE runs_id_seq;
+CREATE SEQUENCE run_points_id_seq;
+
+CREATE TABLE runs (
+    id bigint NOT NULL DEFAULT nextval('runs_id_seq'),
+    user_id bigint NOT NULL,
+    start_time timestamp(6) NOT NULL,
+    end_time timestamp(6),
+    duration_seconds bigint,
+    total_steps integer,
+    distance_meters float(53),
+    path geometry(LineString,4326),
+    claimed_territory geometry(Polygon,4326),
+    is_active boolean,
+    compacted_points bytea,
+    PRIMARY KEY (id, start_time),
+    CONSTRAINT fk_runs_user FOREIGN KEY (user_id) REFERENCES users (id)
+) PARTITION BY RANGE (start_time);
+
+CREATE TABLE run_points (
+    id bigint NOT NULL DEFAULT nextval('run_points_id_seq'),
+    run_id bigint NOT NULL,
+    location geometry(Point,4326),
+    timestamp timestamp(6) NOT NULL,
+    step_count integer,
+    speed_mps float(53),
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+ALTER SEQUENCE runs_id_seq OWNED BY runs.id;
+ALTER SEQUENCE run_points_id_seq OWNED BY run_points.id;
+
+-- Catch-all for rows outside the created months, e.g. points with a badly skewed device clock
+CREATE TABLE runs_default PARTITION OF runs DEFAULT;
+CREATE TABLE run_points_default PARTITION OF run_points DEFAULT;
+
+SELECT create_monthly_partitions('runs',
+        COALESCE((SELECT min(start_time) FROM runs_unpartitioned), now())::date,
+        (now() + interval '3 months')::date);
+SELECT create_monthly_partitions('run_points',
+        COALESCE((SELECT min(timestamp) FROM run_points_unpartitioned), now())::date,
+        (now() + interval '3 months')::date);
+
+INSERT INTO runs (id, user_id, start_time, end_time, duration_seconds, total_steps, distance_meters,
+                  path, claimed_territory, is_active, compacted_points)
+SELECT id, user_id, COALESCE(start_time, end_time, now()), end_time, duration_seconds, total_steps,
+       distance_meters, path, claimed_territory, is_active, compacted_points
+FROM runs_unpartitioned;
+
+INSERT INTO run_points (id, run_id, location, timestamp, step_count, speed_mps)
+SELECT p.id, p.run_id, p.location, COALESCE(p.timestamp, r.start_time, now()), p.step_count, p.speed_mps
+FROM run_points_unpartitioned p
+LEFT JOIN runs_unpartitioned r ON r.id = p.run_id;
+
+SELECT setval('runs_id_seq', COALESCE((SELECT max(id) FROM runs), 0) + 1, false);
+SELECT setval('run_points_id_seq', COALESCE((SELECT max(id) FROM run_points), 0) + 1, false);
+
+DROP TABLE run_points_unpartitioned;
+DROP TABLE runs_unpartitioned;
+
+CREATE INDEX idx_run_points_run_id ON run_points (run_id, timestamp);
@@ -0,0 +1,30 @@
+-- Indexes behind the hot lookups. On the partitioned runs table each is created on every partition.
+
+-- Run history pages (keyset on start_time, id) and per-user window totals
+CREATE INDEX IF NOT EXISTS idx_runs_user_start ON runs (user_id, start_time DESC, id DESC);
+
+-- findByUserAndIsActiveTrue: at most one active run per user
+CREATE INDEX IF NOT EXISTS idx_runs_user_active ON runs (user_id) WHERE is_active;
+
+-- Active territory counts and areas per user
+CREATE INDEX IF NOT EXISTS idx_territories_user_active ON territories (user_id) WHERE is_active;
+
+-- Viewport, tile and overlap queries (ST_Intersects / &&)
+CREATE INDEX IF NOT EXISTS idx_territories_polygon ON territories USING GIST (polygon);
+
+-- Nearby-runner KNN; already in V1, missing on databases baselined from ddl-auto
+CREATE INDEX IF NOT EXISTS idx_users_current_location ON users USING GIST (current_location);
+
+-- findByEmail. ddl-auto created the unique constraint under a generated name, so only add one if
+-- no unique index on users(email) exists yet.
+DO $$
+BEGIN
+    IF NOT EXISTS (
+        SELECT 1 FROM pg_index i
+        JOIN pg_attribute a ON a.attrelid = i.indrelid AND a.attnum = i.indkey[0]
+        WHERE i.indrelid = 'users'::regclass AND i.indisunique AND i.indnatts = 1 AND a.attname = 'email'
+    ) THEN
+        ALTER TABLE users ADD CONSTRAINT uk_users_email UNIQUE (email);
+    END IF;
+END
+$$;
@@ -0,0 +1,6 @@
+-- User search matches lower(name) / lower(email) with LIKE; trigram GIN indexes serve both
+-- substring ('%term%') and prefix ('term%') patterns, and similarity() ranks the results.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_users_name_trgm ON users USING GIN (lower(name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_users_email_trgm ON users USING GIN (lower(email) gin_trgm_ops);
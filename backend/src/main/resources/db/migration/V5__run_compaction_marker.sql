@@ -0,0 +1,12 @@
+-- Marks runs whose points have been packed into compacted_points, so the compaction pass only
+-- looks at finished runs it has not handled yet instead of probing run_points for every one.
+-- Writing progress for a run (a resumed run) clears the marker again.
+ALTER TABLE runs ADD COLUMN IF NOT EXISTS compacted_at timestamp;
+
+-- Finished runs without any rows left in run_points need no pass
+UPDATE runs r SET compacted_at = now()
+WHERE r.is_active = false AND r.end_time IS NOT NULL
+  AND NOT EXISTS (SELECT 1 FROM run_points p WHERE p.run_id = r.id);
+
+-- findCompactable: finished runs not compacted yet, oldest first
+CREATE INDEX IF NOT EXISTS idx_runs_compaction_due ON runs (end_time) WHERE is_active = false AND compacted_at IS NULL;
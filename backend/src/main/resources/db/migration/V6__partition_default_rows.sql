@@ -0,0 +1,76 @@
+-- create_monthly_partitions used to skip a month whose rows already sat in the default partition,
+-- so a single point with a far-ahead device clock kept that month from ever getting a partition
+-- and every later row of the month landed in the default one too. The month's rows are now moved
+-- out of the default partition into the new one, within the caller's transaction: they are copied
+-- into a standalone table, deleted from the default partition, and the table is attached (which
+-- also builds the parent's indexes on it).
+CREATE OR REPLACE FUNCTION create_monthly_partitions(parent text, from_month date, to_month date)
+RETURNS integer LANGUAGE plpgsql AS $$
+DECLARE
+    month date := date_trunc('month', from_month)::date;
+    next_month date;
+    partition_name text;
+    key_column text;
+    default_partition regclass;
+    created integer := 0;
+    moved bigint;
+BEGIN
+    SELECT a.attname, NULLIF(pt.partdefid, 0)::regclass INTO key_column, default_partition
+    FROM pg_partitioned_table pt
+    JOIN pg_attribute a ON a.attrelid = pt.partrelid AND a.attnum = pt.partattrs[0]
+    WHERE pt.partrelid = parent::regclass;
+
+    WHILE month <= to_month LOOP
+        next_month := (month + interval '1 month')::date;
+        partition_name := format('%s_y%sm%s', parent, to_char(month, 'YYYY'), to_char(month, 'MM'));
+        IF to_regclass(partition_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS INCLUDING CONSTRAINTS)',
+                           partition_name, parent);
+            moved := 0;
+            IF default_partition IS NOT NULL THEN
+                EXECUTE format('WITH moved AS (DELETE FROM %s WHERE %I >= %L AND %I < %L RETURNING *) '
+                               'INSERT INTO %I SELECT * FROM moved',
+                               default_partition, key_column, month, key_column, next_month, partition_name);
+                GET DIAGNOSTICS moved = ROW_COUNT;
+            END IF;
+            EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                           parent, partition_name, month, next_month);
+            IF moved > 0 THEN
+                RAISE NOTICE 'Moved % rows of % from the default partition into %', moved, parent, partition_name;
+            END IF;
+            created := created + 1;
+        END IF;
+        month := next_month;
+    END LOOP;
+    RETURN created;
+END
+$$;
+
+-- Gives every month that has rows in the parent's default partition its own partition, moving
+-- the rows over; returns how many partitions were created
+CREATE OR REPLACE FUNCTION drain_default_partition(parent text)
+RETURNS integer LANGUAGE plpgsql AS $$
+DECLARE
+    key_column text;
+    default_partition regclass;
+    month date;
+    created integer := 0;
+BEGIN
+    SELECT a.attname, NULLIF(pt.partdefid, 0)::regclass INTO key_column, default_partition
+    FROM pg_partitioned_table pt
+    JOIN pg_attribute a ON a.attrelid = pt.partrelid AND a.attnum = pt.partattrs[0]
+    WHERE pt.partrelid = parent::regclass;
+    IF default_partition IS NULL THEN
+        RETURN 0;
+    END IF;
+
+    FOR month IN EXECUTE format('SELECT DISTINCT date_trunc(''month'', %I)::date FROM %s',
+                                key_column, default_partition) LOOP
+        created := created + create_monthly_partitions(parent, month, month);
+    END LOOP;
+    RETURN created;
+END
+$$;
+
+SELECT drain_default_partition('runs');
+SELECT drain_default_partition('run_points');
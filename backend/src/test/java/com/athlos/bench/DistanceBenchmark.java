@@ -0,0 +1,184 @@
+package com.athlos.bench;
+
+import com.athlos.util.GeoMath;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-segment cost of the distance options for the ingestion path, over a simulated 1 Hz GPS
+ * track of a runner. Setup prints each option's error against Vincenty on the WGS84 ellipsoid,
+ * so throughput and accuracy can be read side by side:
+ * {@code mvn -Pbenchmarks test -Dbenchmark=DistanceBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DistanceBenchmark {
+
+    private static final int SEGMENTS = 10_000;
+    private static final double METERS_PER_DEGREE = Math.PI / 180 * GeoMath.EARTH_RADIUS_METERS;
+
+    // Equator, mid latitudes and far north, where the planar shortcuts drift most
+    @Param({"0.0", "52.37", "69.65"})
+    private double latitude;
+
+    private double[] lats;
+    private double[] lons;
+    private LineString track;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        lats = new double[SEGMENTS + 1];
+        lons = new double[SEGMENTS + 1];
+        lats[0] = latitude;
+        lons[0] = 4.9;
+        double heading = 0;
+        Coordinate[] coordinates = new Coordinate[SEGMENTS + 1];
+        coordinates[0] = new Coordinate(lons[0], lats[0]);
+        for (int i = 1; i <= SEGMENTS; i++) {
+            // About 3 m per second, turning gradually
+            heading += (random.nextDouble() - 0.5) * 0.3;
+            double step = 2.5 + random.nextDouble();
+            lats[i] = lats[i - 1] + Math.cos(heading) * step / METERS_PER_DEGREE;
+            lons[i] = lons[i - 1] + Math.sin(heading) * step / (METERS_PER_DEGREE * Math.cos(Math.toRadians(lats[i - 1])));
+            coordinates[i] = new Coordinate(lons[i], lats[i]);
+        }
+        track = new GeometryFactory().createLineString(coordinates);
+        printAccuracy();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SEGMENTS)
+    public double haversine() {
+        double total = 0;
+        for (int i = 1; i <= SEGMENTS; i++) {
+            total += GeoMath.haversineMeters(lats[i - 1], lons[i - 1], lats[i], lons[i]);
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SEGMENTS)
+    public double equirectangular() {
+        double total = 0;
+        for (int i = 1; i <= SEGMENTS; i++) {
+            total += equirectangularMeters(lats[i - 1], lons[i - 1], lats[i], lons[i]);
+        }
+        return total;
+    }
+
+    // Planar length in degrees, as Geometry.getLength() gives it for SRID 4326 data
+    @Benchmark
+    @OperationsPerInvocation(SEGMENTS)
+    public double jtsPlanarLength() {
+        return track.getLength() * METERS_PER_DEGREE;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SEGMENTS)
+    public double vincenty() {
+        double total = 0;
+        for (int i = 1; i <= SEGMENTS; i++) {
+            total += vincentyMeters(lats[i - 1], lons[i - 1], lats[i], lons[i]);
+        }
+        return total;
+    }
+
+    private void printAccuracy() {
+        double reference = 0;
+        double maxHaversine = 0;
+        double maxEquirectangular = 0;
+        double maxJts = 0;
+        for (int i = 1; i <= SEGMENTS; i++) {
+            double exact = vincentyMeters(lats[i - 1], lons[i - 1], lats[i], lons[i]);
+            reference += exact;
+            maxHaversine = Math.max(maxHaversine,
+                    relativeError(GeoMath.haversineMeters(lats[i - 1], lons[i - 1], lats[i], lons[i]), exact));
+            maxEquirectangular = Math.max(maxEquirectangular,
+                    relativeError(equirectangularMeters(lats[i - 1], lons[i - 1], lats[i], lons[i]), exact));
+            maxJts = Math.max(maxJts, relativeError(
+                    Math.hypot(lats[i] - lats[i - 1], lons[i] - lons[i - 1]) * METERS_PER_DEGREE, exact));
+        }
+        System.out.printf("%nLatitude %.2f, track of %.0f m (Vincenty). Total error / worst segment error:%n",
+                latitude, reference);
+        System.out.printf("  haversine        %+.4f%% / %.4f%%%n", 100 * (haversine() - reference) / reference, 100 * maxHaversine);
+        System.out.printf("  equirectangular  %+.4f%% / %.4f%%%n", 100 * (equirectangular() - reference) / reference, 100 * maxEquirectangular);
+        System.out.printf("  JTS planar       %+.4f%% / %.4f%%%n", 100 * (jtsPlanarLength() - reference) / reference, 100 * maxJts);
+    }
+
+    private static double relativeError(double value, double exact) {
+        return exact == 0 ? 0 : Math.abs(value - exact) / exact;
+    }
+
+    private static double equirectangularMeters(double lat1, double lon1, double lat2, double lon2) {
+        double x = Math.toRadians(lon2 - lon1) * Math.cos(Math.toRadians((lat1 + lat2) / 2));
+        double y = Math.toRadians(lat2 - lat1);
+        return Math.sqrt(x * x + y * y) * GeoMath.EARTH_RADIUS_METERS;
+    }
+
+    // Vincenty's inverse formula on the WGS84 ellipsoid
+    static double vincentyMeters(double lat1, double lon1, double lat2, double lon2) {
+        double a = 6_378_137.0;
+        double f = 1 / 298.257223563;
+        double b = a * (1 - f);
+        double l = Math.toRadians(lon2 - lon1);
+        double u1 = Math.atan((1 - f) * Math.tan(Math.toRadians(lat1)));
+        double u2 = Math.atan((1 - f) * Math.tan(Math.toRadians(lat2)));
+        double sinU1 = Math.sin(u1);
+        double cosU1 = Math.cos(u1);
+        double sinU2 = Math.sin(u2);
+        double cosU2 = Math.cos(u2);
+        double lambda = l;
+        double sinSigma;
+        double cosSigma;
+        double sigma;
+        double cosSqAlpha;
+        double cos2SigmaM;
+        int iterations = 0;
+        double previous;
+        do {
+            double sinLambda = Math.sin(lambda);
+            double cosLambda = Math.cos(lambda);
+            sinSigma = Math.sqrt((cosU2 * sinLambda) * (cosU2 * sinLambda)
+                    + (cosU1 * sinU2 - sinU1 * cosU2 * cosLambda) * (cosU1 * sinU2 - sinU1 * cosU2 * cosLambda));
+            if (sinSigma == 0) {
+                return 0;
+            }
+            cosSigma = sinU1 * sinU2 + cosU1 * cosU2 * cosLambda;
+            sigma = Math.atan2(sinSigma, cosSigma);
+            double sinAlpha = cosU1 * cosU2 * sinLambda / sinSigma;
+            cosSqAlpha = 1 - sinAlpha * sinAlpha;
+            cos2SigmaM = cosSqAlpha != 0 ? cosSigma - 2 * sinU1 * sinU2 / cosSqAlpha : 0;
+            double c = f / 16 * cosSqAlpha * (4 + f * (4 - 3 * cosSqAlpha));
+            previous = lambda;
+            lambda = l + (1 - c) * f * sinAlpha
+                    * (sigma + c * sinSigma * (cos2SigmaM + c * cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)));
+        } while (Math.abs(lambda - previous) > 1e-12 && ++iterations < 100);
+        double uSq = cosSqAlpha * (a * a - b * b) / (b * b);
+        double bigA = 1 + uSq / 16384 * (4096 + uSq * (-768 + uSq * (320 - 175 * uSq)));
+        double bigB = uSq / 1024 * (256 + uSq * (-128 + uSq * (74 - 47 * uSq)));
+        double deltaSigma = bigB * sinSigma * (cos2SigmaM + bigB / 4 * (cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)
+                - bigB / 6 * cos2SigmaM * (-3 + 4 * sinSigma * sinSigma) * (-3 + 4 * cos2SigmaM * cos2SigmaM)));
+        return b * bigA * (sigma - deltaSigma);
+    }
+}
@@ -0,0 +1,135 @@
+package com.athlos.bench;
+
+import com.athlos.filter.JwtAuthenticationFilter;
+import com.athlos.util.JwtUtil;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of the JWT authentication filter, run from one thread per core as under high RPS.
+ * {@code cachedToken} is the common case of a client sending the same token again,
+ * {@code firstSeenToken} a token the cache has not verified yet, and {@code tripleParse} the
+ * extractUsername / validateToken sequence the filter used before tokens were verified once:
+ * {@code mvn -Pbenchmarks test -DskipTests -Dbenchmark=JwtFilterBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class JwtFilterBenchmark {
+
+    private static final String SECRET = "mySecretKey123456789012345678901234567890";
+    private static final int TOKENS = 4096;
+    private static final FilterChain NO_OP = (request, response) -> { };
+
+    private JwtUtil cachingJwtUtil;
+    private JwtUtil coldJwtUtil;
+    private JwtAuthenticationFilter cachingFilter;
+    private JwtAuthenticationFilter coldFilter;
+    private String[] tokens;
+
+    @State(Scope.Thread)
+    public static class Request {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/runs");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        int next;
+
+        @TearDown(Level.Invocation)
+        public void clearContext() {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        cachingJwtUtil = jwtUtil(100_000);
+        // Too small to hold the rotating tokens, so every request parses and verifies
+        coldJwtUtil = jwtUtil(1);
+        cachingFilter = filter(cachingJwtUtil);
+        coldFilter = filter(coldJwtUtil);
+        tokens = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            tokens[i] = cachingJwtUtil.generateToken("runner" + i + "@example.com", (long) i);
+        }
+        if (!"runner7@example.com".equals(subject(cachingFilter, tokens[7]))
+                || !"runner7@example.com".equals(subject(coldFilter, tokens[7]))
+                || subject(cachingFilter, tokens[7] + "x") != null) {
+            throw new IllegalStateException("Filter did not authenticate the benchmark tokens as expected");
+        }
+    }
+
+    @Benchmark
+    public Authentication cachedToken(Request state) throws Exception {
+        return authenticate(cachingFilter, state, tokens[state.next++ & 63]);
+    }
+
+    @Benchmark
+    public Authentication firstSeenToken(Request state) throws Exception {
+        return authenticate(coldFilter, state, tokens[state.next++ & (TOKENS - 1)]);
+    }
+
+    @Benchmark
+    public Boolean tripleParse(Request state) {
+        String token = tokens[state.next++ & (TOKENS - 1)];
+        String username = coldJwtUtil.extractUsername(token);
+        return username.equals(coldJwtUtil.extractUsername(token))
+                && coldJwtUtil.extractExpiration(token).getTime() > System.currentTimeMillis();
+    }
+
+    private static Authentication authenticate(JwtAuthenticationFilter filter, Request state, String token) throws Exception {
+        state.request.addHeader("Authorization", "Bearer " + token);
+        try {
+            filter.doFilter(state.request, state.response, NO_OP);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            state.request.removeHeader("Authorization");
+        }
+    }
+
+    private static String subject(JwtAuthenticationFilter filter, String token) throws Exception {
+        Request check = new Request();
+        try {
+            Authentication authentication = authenticate(filter, check, token);
+            return authentication != null ? (String) authentication.getPrincipal() : null;
+        } finally {
+            check.clearContext();
+        }
+    }
+
+    private static JwtUtil jwtUtil(long cacheSize) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpirationMs", 86_400_000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheSize", cacheSize);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    private static JwtAuthenticationFilter filter(JwtUtil jwtUtil) {
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+        return filter;
+    }
+}
@@ -0,0 +1,123 @@
+package com.athlos.bench;
+
+import com.athlos.dto.NearbyRunnerDTO;
+import com.athlos.service.LiveLocationService;
+import com.athlos.util.GeoMath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * k-nearest runner lookup on the live geohash grid against a linear scan over the same users,
+ * at 100k simulated users spread over a metropolitan area with denser clusters (parks, river
+ * paths). Setup checks that the grid returns exactly what the scan returns:
+ * {@code mvn -Pbenchmarks test -DskipTests -Dbenchmark=NearestRunnerBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NearestRunnerBenchmark {
+
+    private static final double CENTRE_LAT = 52.37;
+    private static final double CENTRE_LON = 4.90;
+    private static final int QUERIES = 1024;
+
+    @Param("100000")
+    private int users;
+
+    @Param({"10", "50"})
+    private int k;
+
+    @Param({"300", "5000"})
+    private double radiusMeters;
+
+    private LiveLocationService grid;
+    private double[] lats;
+    private double[] lons;
+    private double[][] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(14);
+        grid = new LiveLocationService();
+        lats = new double[users];
+        lons = new double[users];
+        double[][] clusters = new double[40][];
+        for (int c = 0; c < clusters.length; c++) {
+            clusters[c] = new double[] {CENTRE_LAT + (random.nextDouble() - 0.5) * 0.4, CENTRE_LON + (random.nextDouble() - 0.5) * 0.6};
+        }
+        for (int i = 0; i < users; i++) {
+            // Half the runners around a cluster, half anywhere in a ~45km x 40km area
+            if (i % 2 == 0) {
+                double[] cluster = clusters[random.nextInt(clusters.length)];
+                lats[i] = cluster[0] + random.nextGaussian() * 0.005;
+                lons[i] = cluster[1] + random.nextGaussian() * 0.008;
+            } else {
+                lats[i] = CENTRE_LAT + (random.nextDouble() - 0.5) * 0.4;
+                lons[i] = CENTRE_LON + (random.nextDouble() - 0.5) * 0.6;
+            }
+            grid.update((long) i, lats[i], lons[i]);
+        }
+        queries = new double[QUERIES][];
+        for (int q = 0; q < QUERIES; q++) {
+            queries[q] = new double[] {CENTRE_LAT + (random.nextDouble() - 0.5) * 0.4, CENTRE_LON + (random.nextDouble() - 0.5) * 0.6};
+        }
+        for (double[] query : queries) {
+            List<Long> expected = linearScan(query[0], query[1]);
+            List<Long> actual = grid.nearest(query[0], query[1], k, radiusMeters).stream()
+                    .map(NearbyRunnerDTO::getUserId).toList();
+            if (!expected.equals(actual)) {
+                throw new IllegalStateException("Grid and linear scan disagree at " + query[0] + "," + query[1]);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<NearbyRunnerDTO> geohashGrid() {
+        double[] query = queries[next++ & (QUERIES - 1)];
+        return grid.nearest(query[0], query[1], k, radiusMeters);
+    }
+
+    @Benchmark
+    public List<Long> linearScan() {
+        double[] query = queries[next++ & (QUERIES - 1)];
+        return linearScan(query[0], query[1]);
+    }
+
+    private List<Long> linearScan(double lat, double lon) {
+        PriorityQueue<double[]> best = new PriorityQueue<>(Comparator.comparingDouble((double[] e) -> e[1]).reversed());
+        for (int i = 0; i < users; i++) {
+            double distance = GeoMath.haversineMeters(lat, lon, lats[i], lons[i]);
+            if (distance > radiusMeters || (best.size() == k && distance >= best.peek()[1])) {
+                continue;
+            }
+            best.add(new double[] {i, distance});
+            if (best.size() > k) {
+                best.poll();
+            }
+        }
+        List<double[]> sorted = new ArrayList<>(best);
+        sorted.sort(Comparator.comparingDouble(e -> e[1]));
+        return sorted.stream().map(e -> (long) e[0]).toList();
+    }
+}
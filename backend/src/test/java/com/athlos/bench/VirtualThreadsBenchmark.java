@@ -0,0 +1,148 @@
+package com.athlos.bench;
+
+import com.athlos.config.ConcurrencyLimitedDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test of the {@code virtual-threads} profile against the default platform request threads.
+ * Each invocation is a burst of simultaneous requests; a request waits on a downstream call, then
+ * holds a connection from a 20-permit {@link ConcurrencyLimitedDataSource} for a short query.
+ * The score is requests per second, and the p50 / p99 request latency is printed after every
+ * iteration. The virtual variant needs a Java 21 runtime (the build itself stays on 17):
+ * {@code PATH=$JDK21/bin:$PATH mvn -Pbenchmarks test -DskipTests -Dbenchmark=VirtualThreadsBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VirtualThreadsBenchmark {
+
+    private static final int BURST = 2000;
+    // Tomcat's default server.tomcat.threads.max, and the Hikari pool of the virtual-threads profile
+    private static final int PLATFORM_THREADS = 200;
+    private static final int DB_PERMITS = 20;
+    private static final long QUERY_MILLIS = 2;
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    // 0 for a request that only queries the database, 100 for one that also waits on a downstream call
+    @Param({"0", "100"})
+    private long downstreamMillis;
+
+    private ExecutorService executor;
+    private ConcurrencyLimitedDataSource dataSource;
+    private final AtomicInteger failures = new AtomicInteger();
+    private long[] latencies = new long[0];
+    private int recorded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = "virtual".equals(threads) ? virtualThreadPerTask() : Executors.newFixedThreadPool(PLATFORM_THREADS);
+        dataSource = new ConcurrencyLimitedDataSource(new SimulatedDataSource(), DB_PERMITS, 5000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printLatencies() {
+        long[] sorted = Arrays.copyOf(latencies, recorded);
+        Arrays.sort(sorted);
+        if (sorted.length > 0) {
+            System.out.printf("  %d requests, p50 %.1f ms, p99 %.1f ms, %d failed%n", sorted.length,
+                    sorted[sorted.length / 2] / 1e6, sorted[(int) (sorted.length * 0.99)] / 1e6, failures.get());
+        }
+        recorded = 0;
+        failures.set(0);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void burst() throws InterruptedException {
+        long[] burstLatencies = new long[BURST];
+        CountDownLatch done = new CountDownLatch(BURST);
+        long submitted = System.nanoTime();
+        for (int i = 0; i < BURST; i++) {
+            int request = i;
+            executor.execute(() -> {
+                try {
+                    handle();
+                    burstLatencies[request] = System.nanoTime() - submitted;
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        if (recorded + BURST > latencies.length) {
+            latencies = Arrays.copyOf(latencies, Math.max(2 * latencies.length, recorded + BURST));
+        }
+        System.arraycopy(burstLatencies, 0, latencies, recorded, BURST);
+        recorded += BURST;
+    }
+
+    private void handle() throws Exception {
+        if (downstreamMillis > 0) {
+            Thread.sleep(downstreamMillis);
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            Thread.sleep(QUERY_MILLIS);
+        }
+    }
+
+    // Compiled for Java 17, so the Java 21 factory is looked up at runtime
+    private static ExecutorService virtualThreadPerTask() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Virtual threads need a Java 21 runtime, this is Java " + Runtime.version().feature());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Stands in for the Hikari pool: connections are free, the query time is spent while holding a permit
+    private static final class SimulatedDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                    (proxy, method, args) -> method.getReturnType() == boolean.class ? false : null);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) {
+            return getConnection();
+        }
+    }
+}
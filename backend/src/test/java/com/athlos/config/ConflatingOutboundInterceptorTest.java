@@ -0,0 +1,99 @@
+package com.athlos.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConflatingOutboundInterceptorTest {
+
+    // A full-state destination; the leaderboard itself is only published as deltas
+    private static final String BOARD = "/topic/board.daily";
+    private static final String DELTAS = StompDestinations.leaderboardDeltas("daily");
+
+    private ConflatingOutboundInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new ConflatingOutboundInterceptor();
+        ReflectionTestUtils.setField(interceptor, "conflateDestinations", List.of("/topic/board.*"));
+        ReflectionTestUtils.setField(interceptor, "perSessionQueueLimit", 2);
+    }
+
+    @Test
+    void deliversEveryFrameWhileUnderTheSessionLimit() {
+        assertThat(interceptor.preSend(frame("s1", BOARD, "1"), null)).isNotNull();
+        assertThat(interceptor.preSend(frame("s1", BOARD, "2"), null)).isNotNull();
+        assertThat(interceptor.getConflatedCount()).isZero();
+    }
+
+    @Test
+    void conflatesFullStateFramesOnceTheSessionIsBehind() {
+        interceptor.preSend(frame("s1", DELTAS, "d1"), null);
+        interceptor.preSend(frame("s1", DELTAS, "d2"), null);
+
+        Message<?> queued = interceptor.preSend(frame("s1", BOARD, "1"), null);
+        assertThat(queued).isNotNull();
+        assertThat(interceptor.preSend(frame("s1", BOARD, "2"), null)).isNull();
+        assertThat(interceptor.preSend(frame("s1", BOARD, "3"), null)).isNull();
+
+        // The waiting frame carries the newest board
+        assertThat(body(interceptor.beforeHandle(queued, null, null))).isEqualTo("3");
+        assertThat(interceptor.getConflatedCount()).isEqualTo(2);
+        assertThat(interceptor.getPendingCount()).isZero();
+    }
+
+    @Test
+    void neverDropsDeltasOrProtocolFrames() {
+        interceptor.preSend(frame("s1", DELTAS, "d1"), null);
+        interceptor.preSend(frame("s1", DELTAS, "d2"), null);
+
+        assertThat(interceptor.preSend(frame("s1", DELTAS, "d3"), null)).isNotNull();
+        StompHeaderAccessor receipt = StompHeaderAccessor.create(StompCommand.RECEIPT);
+        receipt.setSessionId("s1");
+        assertThat(interceptor.preSend(MessageBuilder.createMessage(new byte[0], receipt.getMessageHeaders()), null)).isNotNull();
+    }
+
+    @Test
+    void limitIsPerSession() {
+        interceptor.preSend(frame("s1", DELTAS, "d1"), null);
+        interceptor.preSend(frame("s1", DELTAS, "d2"), null);
+        interceptor.preSend(frame("s1", BOARD, "1"), null);
+
+        assertThat(interceptor.preSend(frame("s2", BOARD, "1"), null)).isNotNull();
+        assertThat(interceptor.preSend(frame("s2", BOARD, "2"), null)).isNotNull();
+    }
+
+    @Test
+    void handledFramesReleaseTheSessionBacklog() {
+        Message<?> first = interceptor.preSend(frame("s1", DELTAS, "d1"), null);
+        Message<?> second = interceptor.preSend(frame("s1", DELTAS, "d2"), null);
+        assertThat(interceptor.getMaxSessionBacklog()).isEqualTo(2);
+
+        interceptor.afterMessageHandled(interceptor.beforeHandle(first, null, null), null, null, null);
+        interceptor.afterMessageHandled(interceptor.beforeHandle(second, null, null), null, null, null);
+
+        assertThat(interceptor.getMaxSessionBacklog()).isZero();
+        assertThat(interceptor.preSend(frame("s1", BOARD, "1"), null)).isNotNull();
+        assertThat(interceptor.preSend(frame("s1", BOARD, "2"), null)).isNotNull();
+    }
+
+    private static Message<byte[]> frame(String sessionId, String destination, String body) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(body.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+
+    private static String body(Message<?> message) {
+        return new String((byte[]) message.getPayload(), StandardCharsets.UTF_8);
+    }
+}
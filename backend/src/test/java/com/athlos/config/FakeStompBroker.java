@@ -0,0 +1,212 @@
+package com.athlos.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A minimal STOMP 1.2 broker standing in for RabbitMQ's STOMP adapter in relay tests. It accepts
+ * any login, routes SEND frames to matching SUBSCRIBE frames, and, like RabbitMQ, answers ERROR
+ * for a {@code /topic/} destination with more than one segment after the prefix.
+ */
+class FakeStompBroker implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final List<Frame> received = new CopyOnWriteArrayList<>();
+    private final List<Frame> errors = new CopyOnWriteArrayList<>();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final List<Connection> connections = new CopyOnWriteArrayList<>();
+    private final AtomicInteger messageIds = new AtomicInteger();
+
+    FakeStompBroker() throws IOException {
+        serverSocket = new ServerSocket(0);
+        Thread acceptor = new Thread(this::accept, "fake-stomp-broker");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    List<Frame> getReceived() {
+        return received;
+    }
+
+    List<Frame> getErrors() {
+        return errors;
+    }
+
+    // Forgets the frames seen so far; connections and subscriptions are kept
+    void clearFrames() {
+        received.clear();
+        errors.clear();
+    }
+
+    boolean hasFrame(String command, String destination) {
+        return received.stream().anyMatch(frame -> frame.command.equals(command)
+                && destination.equals(frame.headers.get("destination")));
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Connection connection : connections) {
+            connection.socket.close();
+        }
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Connection connection = new Connection(serverSocket.accept());
+                connections.add(connection);
+                Thread reader = new Thread(() -> read(connection), "fake-stomp-connection");
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void read(Connection connection) {
+        try {
+            InputStream in = connection.socket.getInputStream();
+            Frame frame;
+            while ((frame = Frame.read(in)) != null) {
+                received.add(frame);
+                handle(connection, frame);
+            }
+        } catch (IOException e) {
+            // Connection closed
+        } finally {
+            subscriptions.removeIf(subscription -> subscription.connection == connection);
+        }
+    }
+
+    private void handle(Connection connection, Frame frame) throws IOException {
+        String destination = frame.headers.get("destination");
+        switch (frame.command) {
+            case "CONNECT", "STOMP" -> connection.write("CONNECTED", Map.of("version", "1.2", "heart-beat", "0,0"), "");
+            case "SUBSCRIBE" -> {
+                if (reject(connection, frame, destination)) {
+                    return;
+                }
+                subscriptions.add(new Subscription(connection, frame.headers.get("id"), destination));
+            }
+            case "SEND" -> {
+                if (reject(connection, frame, destination)) {
+                    return;
+                }
+                for (Subscription subscription : subscriptions) {
+                    if (subscription.destination.equals(destination)) {
+                        Map<String, String> headers = new LinkedHashMap<>();
+                        headers.put("subscription", subscription.id);
+                        headers.put("destination", destination);
+                        headers.put("message-id", String.valueOf(messageIds.incrementAndGet()));
+                        headers.put("content-type", frame.headers.getOrDefault("content-type", "text/plain"));
+                        subscription.connection.write("MESSAGE", headers, frame.body);
+                    }
+                }
+            }
+            case "DISCONNECT" -> connection.socket.close();
+            default -> {
+            }
+        }
+    }
+
+    // RabbitMQ maps /topic/<name> onto a routing key and refuses further slash-separated segments
+    private boolean reject(Connection connection, Frame frame, String destination) throws IOException {
+        if (destination == null || !destination.startsWith("/topic/")
+                || destination.indexOf('/', "/topic/".length()) < 0) {
+            return false;
+        }
+        errors.add(frame);
+        connection.write("ERROR", Map.of("message", "Invalid destination " + destination), "");
+        return true;
+    }
+
+    static final class Frame {
+        final String command;
+        final Map<String, String> headers;
+        final String body;
+
+        private Frame(String command, Map<String, String> headers, String body) {
+            this.command = command;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        // Reads up to the next NUL, skipping heart-beat EOLs; null at end of stream
+        private static Frame read(InputStream in) throws IOException {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b == 0) {
+                    break;
+                }
+                if (buffer.size() == 0 && (b == '\n' || b == '\r')) {
+                    continue;
+                }
+                buffer.write(b);
+            }
+            if (b == -1) {
+                return null;
+            }
+            String raw = buffer.toString(StandardCharsets.UTF_8);
+            int headerEnd = raw.indexOf("\n\n");
+            String head = headerEnd >= 0 ? raw.substring(0, headerEnd) : raw;
+            String body = headerEnd >= 0 ? raw.substring(headerEnd + 2) : "";
+            List<String> lines = new ArrayList<>(List.of(head.split("\r?\n")));
+            Map<String, String> headers = new LinkedHashMap<>();
+            for (String line : lines.subList(1, lines.size())) {
+                int colon = line.indexOf(':');
+                headers.putIfAbsent(line.substring(0, colon), line.substring(colon + 1));
+            }
+            return new Frame(lines.get(0), headers, body);
+        }
+    }
+
+    private static final class Connection {
+        private final Socket socket;
+
+        private Connection(Socket socket) {
+            this.socket = socket;
+        }
+
+        private synchronized void write(String command, Map<String, String> headers, String body) throws IOException {
+            byte[] payload = body.getBytes(StandardCharsets.UTF_8);
+            StringBuilder frame = new StringBuilder(command).append('\n');
+            headers.forEach((name, value) -> frame.append(name).append(':').append(value).append('\n'));
+            frame.append("content-length:").append(payload.length).append("\n\n");
+            OutputStream out = socket.getOutputStream();
+            out.write(frame.toString().getBytes(StandardCharsets.UTF_8));
+            out.write(payload);
+            out.write(0);
+            out.flush();
+        }
+    }
+
+    private static final class Subscription {
+        private final Connection connection;
+        private final String id;
+        private final String destination;
+
+        private Subscription(Connection connection, String id, String destination) {
+            this.connection = connection;
+            this.id = id;
+            this.destination = destination;
+        }
+    }
+}
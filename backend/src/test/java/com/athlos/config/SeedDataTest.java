@@ -0,0 +1,47 @@
+package com.athlos.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// data.sql is not run against PostgreSQL (spring.sql.init.mode is left at embedded), so schema
+// changes placed there silently never apply; they belong in db/migration
+class SeedDataTest {
+
+    private static final Pattern DDL = Pattern.compile(
+            "^\\s*(CREATE|ALTER|DROP|COMMENT ON|TRUNCATE)\\b", Pattern.CASE_INSENSITIVE);
+
+    @Test
+    void seedDataContainsNoSchemaStatements() throws IOException {
+        String sql = new ClassPathResource("data.sql").getContentAsString(StandardCharsets.UTF_8);
+
+        List<String> ddl = Arrays.stream(sql.split("\n"))
+                .filter(line -> DDL.matcher(line).find())
+                .toList();
+
+        assertThat(ddl).isEmpty();
+    }
+
+    @Test
+    void migrationsCreateTheIndexesOnceKeptInSeedData() throws IOException {
+        String baseline = migration("V1__baseline.sql");
+        String indexes = migration("V3__query_indexes.sql");
+
+        assertThat(baseline).contains("idx_users_current_location", "idx_run_points_run_id");
+        // Databases baselined from ddl-auto skip V1, so V3 has to add the GiST index again
+        assertThat(indexes).contains("idx_users_current_location");
+    }
+
+    private static String migration(String name) throws IOException {
+        return new ClassPathResource("db/migration/" + name).getContentAsString(StandardCharsets.UTF_8)
+                .toLowerCase(Locale.ROOT);
+    }
+}
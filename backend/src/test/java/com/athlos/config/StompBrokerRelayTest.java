@@ -0,0 +1,142 @@
+package com.athlos.config;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+// Relay mode against FakeStompBroker, which rejects destinations the way RabbitMQ's STOMP adapter does
+@SpringJUnitWebConfig(classes = {WebSocketConfig.class, ConflatingOutboundInterceptor.class, WebSocketMetrics.class})
+class StompBrokerRelayTest {
+
+    private static final FakeStompBroker broker = startBroker();
+
+    @Autowired
+    private StompBrokerRelayMessageHandler relay;
+
+    @Autowired
+    @Qualifier("brokerMessagingTemplate")
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    @Qualifier("clientInboundChannel")
+    private MessageChannel clientInboundChannel;
+
+    @Autowired
+    @Qualifier("clientOutboundChannel")
+    private ExecutorSubscribableChannel clientOutboundChannel;
+
+    private final List<Message<?>> delivered = new CopyOnWriteArrayList<>();
+
+    @DynamicPropertySource
+    static void relayProperties(DynamicPropertyRegistry registry) {
+        registry.add("websocket.broker.mode", () -> "relay");
+        registry.add("websocket.broker.relay.host", () -> "127.0.0.1");
+        registry.add("websocket.broker.relay.port", broker::getPort);
+    }
+
+    @AfterAll
+    static void stopBroker() throws IOException {
+        broker.close();
+    }
+
+    @BeforeEach
+    void awaitRelay() {
+        clientOutboundChannel.addInterceptor(new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                delivered.add(message);
+                return message;
+            }
+        });
+        await().atMost(Duration.ofSeconds(10)).until(relay::isBrokerAvailable);
+        broker.clearFrames();
+    }
+
+    @Test
+    void broadcastsReachTheBrokerOnDotDestinations() {
+        String deltas = StompDestinations.leaderboardDeltas("all-time");
+        messagingTemplate.convertAndSend(deltas, "{\"version\":2}");
+        messagingTemplate.convertAndSend(StompDestinations.nearby("dr5ru"), "{}");
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> broker.hasFrame("SEND", deltas)
+                && broker.hasFrame("SEND", StompDestinations.nearby("dr5ru")));
+        assertThat(broker.getErrors()).isEmpty();
+    }
+
+    @Test
+    void subscribersReceiveBroadcastsThroughTheRelay() {
+        String destination = StompDestinations.leaderboardDeltas("daily");
+        sendFromClient(StompCommand.CONNECT, "session-1", null);
+        // The relay ignores client frames until the broker has answered CONNECTED
+        await().atMost(Duration.ofSeconds(5)).until(() -> delivered.stream().anyMatch(message ->
+                StompCommand.CONNECTED.equals(StompHeaderAccessor.wrap(message).getCommand())
+                        && "session-1".equals(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()))));
+        sendFromClient(StompCommand.SUBSCRIBE, "session-1", destination);
+        await().atMost(Duration.ofSeconds(5)).until(() -> broker.hasFrame("SUBSCRIBE", destination));
+
+        messagingTemplate.convertAndSend(destination, "{\"version\":2}");
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> delivered.stream().anyMatch(message ->
+                StompCommand.MESSAGE.equals(StompHeaderAccessor.wrap(message).getCommand())
+                        && destination.equals(SimpMessageHeaderAccessor.getDestination(message.getHeaders()))));
+        Message<?> message = delivered.stream()
+                .filter(m -> destination.equals(SimpMessageHeaderAccessor.getDestination(m.getHeaders())))
+                .findFirst().orElseThrow();
+        assertThat(SimpMessageHeaderAccessor.getSessionId(message.getHeaders())).isEqualTo("session-1");
+        assertThat(new String((byte[]) message.getPayload(), StandardCharsets.UTF_8)).isEqualTo("{\"version\":2}");
+        assertThat(broker.getErrors()).isEmpty();
+    }
+
+    @Test
+    void brokerRejectsSlashSeparatedTopics() {
+        messagingTemplate.convertAndSend("/topic/leaderboard/daily", "[]");
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> !broker.getErrors().isEmpty());
+        await().atMost(Duration.ofSeconds(10)).until(relay::isBrokerAvailable);
+    }
+
+    private void sendFromClient(StompCommand command, String sessionId, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId(sessionId);
+        if (command == StompCommand.CONNECT) {
+            accessor.setAcceptVersion("1.2");
+        } else {
+            accessor.setDestination(destination);
+            accessor.setSubscriptionId("sub-0");
+        }
+        clientInboundChannel.send(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+    }
+
+    private static FakeStompBroker startBroker() {
+        try {
+            return new FakeStompBroker();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
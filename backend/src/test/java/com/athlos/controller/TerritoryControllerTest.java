@@ -0,0 +1,61 @@
+package com.athlos.controller;
+
+import com.athlos.service.TerritoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TerritoryControllerTest {
+
+    private TerritoryController controller;
+
+    @BeforeEach
+    void setUp() {
+        TerritoryService territoryService = mock(TerritoryService.class);
+        when(territoryService.getActiveTerritoriesInBoundingBox(anyDouble(), anyDouble(), anyDouble(), anyDouble()))
+                .thenReturn(List.of());
+        controller = new TerritoryController();
+        ReflectionTestUtils.setField(controller, "territoryService", territoryService);
+        ReflectionTestUtils.setField(controller, "maxBboxSpanDegrees", 1.0);
+    }
+
+    @Test
+    void answersAViewportOnTheGlobe() {
+        assertThat(status("4.85,52.33,4.95,52.40")).isEqualTo(HttpStatus.OK);
+        assertThat(status("179.5,-90,180,-89.5")).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void rejectsInvertedOrEmptyBoxes() {
+        assertThat(status("4.95,52.33,4.85,52.40")).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(status("4.85,52.40,4.95,52.33")).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(status("4.85,52.33,4.85,52.40")).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void rejectsBoxesOffTheGlobeOrNotNumbers() {
+        assertThat(status("179.8,52.33,180.2,52.40")).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(status("4.85,89.8,4.95,90.1")).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(status("NaN,52.33,4.95,52.40")).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(status("4.85,52.33,Infinity,52.40")).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(status("4.85,52.33,4.95")).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void rejectsBoxesLargerThanTheSpan() {
+        assertThat(status("-180,-90,180,90")).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(status("4.0,52.0,5.5,52.5")).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    private HttpStatus status(String bbox) {
+        return HttpStatus.valueOf(controller.getTerritoriesInViewport(bbox).getStatusCode().value());
+    }
+}
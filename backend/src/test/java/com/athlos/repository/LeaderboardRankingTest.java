@@ -0,0 +1,93 @@
+package com.athlos.repository;
+
+import com.athlos.dto.LeaderboardEntryDTO;
+import com.athlos.service.LeaderboardEngine;
+import com.athlos.service.LeaderboardPeriod;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Ranks the same tied standings with both leaderboard sources, the in-memory engine and the
+ * ranked SQL query, which must agree. Runs against the {@link PostgresTestDatabase}, on runs far
+ * in the future so no other data falls in the window, in one transaction that is rolled back.
+ */
+@EnabledIf("com.athlos.repository.PostgresTestDatabase#isAvailable")
+class LeaderboardRankingTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2099, 6, 15, 0, 0);
+
+    private Connection connection;
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void connect() throws SQLException {
+        connection = PostgresTestDatabase.connect();
+        connection.setAutoCommit(false);
+        jdbcTemplate = new NamedParameterJdbcTemplate(new SingleConnectionDataSource(connection, true));
+    }
+
+    @AfterEach
+    void rollBack() throws SQLException {
+        connection.rollback();
+        connection.close();
+    }
+
+    @Test
+    void bothSourcesRankTiesTheSameWay() {
+        LeaderboardEngine engine = new LeaderboardEngine();
+        // Three users tied on 500 steps, one of them over two runs, and one behind
+        long[][] runs = {{500}, {300}, {250, 250}, {500}};
+        List<Long> users = new ArrayList<>();
+        for (int i = 0; i < runs.length; i++) {
+            Long userId = insertUser("ranking-" + i + "@test");
+            users.add(userId);
+            engine.updateUserName(userId, "Ranking " + i);
+            for (long steps : runs[i]) {
+                insertRun(userId, steps);
+                engine.recordProgress(userId, DAY.plusHours(8), (int) steps, steps * 0.8);
+            }
+        }
+
+        List<String> sql = jdbcTemplate.query(RunRepository.RANKED_LEADERBOARD_SQL, new MapSqlParameterSource()
+                        .addValue("startDate", Timestamp.valueOf(DAY))
+                        .addValue("endDate", Timestamp.valueOf(DAY.plusDays(1)))
+                        .addValue("limit", 50),
+                (rs, i) -> rs.getLong("leaderboardRank") + ". user " + rs.getLong("userId"));
+        List<String> memory = engine.top(LeaderboardPeriod.ALL_TIME, 50).stream()
+                .map((LeaderboardEntryDTO entry) -> entry.getRank() + ". user " + entry.getUserId())
+                .toList();
+
+        // Users are inserted in id order, so the tie on 500 steps is ranked in insertion order
+        assertThat(sql).containsExactly("1. user " + users.get(0), "2. user " + users.get(2),
+                "3. user " + users.get(3), "4. user " + users.get(1));
+        assertThat(memory).isEqualTo(sql);
+    }
+
+    private Long insertUser(String email) {
+        return jdbcTemplate.queryForObject("INSERT INTO users (email, password, name) VALUES (:email, 'x', :email) RETURNING id",
+                new MapSqlParameterSource("email", email), Long.class);
+    }
+
+    private void insertRun(Long userId, long steps) {
+        jdbcTemplate.update("INSERT INTO runs (user_id, start_time, is_active, total_steps, distance_meters) " +
+                        "VALUES (:user, :start, false, :steps, :distance)", new MapSqlParameterSource()
+                .addValue("user", userId)
+                .addValue("start", Timestamp.valueOf(DAY.plusHours(8)))
+                .addValue("steps", steps)
+                .addValue("distance", steps * 0.8));
+    }
+}
@@ -0,0 +1,116 @@
+package com.athlos.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the plans of the time-window queries against a migrated database: each must only scan
+ * the partitions of its window. Runs against the {@link PostgresTestDatabase}, in one transaction
+ * that is rolled back.
+ */
+@EnabledIf("com.athlos.repository.PostgresTestDatabase#isAvailable")
+class PartitionPruningTest {
+
+    private Connection connection;
+
+    @BeforeEach
+    void connect() throws SQLException {
+        connection = PostgresTestDatabase.connect();
+        connection.setAutoCommit(false);
+    }
+
+    @AfterEach
+    void rollBack() throws SQLException {
+        connection.rollback();
+        connection.close();
+    }
+
+    @Test
+    void leaderboardWindowScansOnlyItsMonth() throws SQLException {
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        List<String> scanned = scannedTables(
+                "SELECT user_id, SUM(total_steps) FROM runs WHERE start_time >= '" + month + "' " +
+                "AND start_time < '" + month.plusMonths(1) + "' GROUP BY user_id");
+
+        assertThat(scanned).containsExactly(partition("runs", month));
+    }
+
+    @Test
+    void compactionDeleteScansOnlyTheRunsMonths() throws SQLException {
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        List<String> scanned = scannedTables(
+                "DELETE FROM run_points WHERE run_id = 1 AND id <= 100 " +
+                "AND timestamp BETWEEN '" + month + " 08:00' AND '" + month + " 09:00'");
+
+        assertThat(scanned).containsExactly(partition("run_points", month));
+    }
+
+    @Test
+    void runUpdatesByIdScanOnlyTheRunsMonth() throws SQLException {
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        String run = "WHERE id = 1 AND start_time = '" + month + " 08:00'";
+
+        // RunProgressRepository, RunPointArchiveRepository, and Hibernate's updates of Run (@PartitionKey)
+        assertThat(scannedTables("UPDATE runs SET total_steps = 1, distance_meters = 1, compacted_at = NULL " + run))
+                .containsExactly(partition("runs", month));
+        assertThat(scannedTables("UPDATE runs SET compacted_at = now() " + run)).containsExactly(partition("runs", month));
+        assertThat(scannedTables("SELECT compacted_points FROM runs " + run + " FOR UPDATE"))
+                .containsExactly(partition("runs", month));
+    }
+
+    @Test
+    void drainMovesDefaultRowsIntoANewMonthlyPartition() throws SQLException {
+        LocalDate farAhead = LocalDate.of(2099, 6, 1);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO users (email, password, name) VALUES ('pruning@test', 'x', 'Pruning')");
+            statement.execute("INSERT INTO runs (user_id, start_time, is_active) " +
+                    "SELECT id, '2099-06-15 10:00', false FROM users WHERE email = 'pruning@test'");
+            assertThat(count(statement, "SELECT COUNT(*) FROM runs_default WHERE start_time >= '2099-06-01'")).isEqualTo(1);
+
+            assertThat(count(statement, "SELECT drain_default_partition('runs')")).isGreaterThanOrEqualTo(1);
+
+            assertThat(count(statement, "SELECT COUNT(*) FROM runs_default WHERE start_time >= '2099-06-01'")).isZero();
+            assertThat(count(statement, "SELECT COUNT(*) FROM " + partition("runs", farAhead))).isEqualTo(1);
+        }
+        assertThat(scannedTables("SELECT id FROM runs WHERE start_time >= '2099-06-01' AND start_time < '2099-07-01'"))
+                .containsExactly(partition("runs", farAhead));
+    }
+
+    private List<String> scannedTables(String sql) throws SQLException {
+        List<String> tables = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet plan = statement.executeQuery("EXPLAIN (COSTS OFF) " + sql)) {
+            while (plan.next()) {
+                String line = plan.getString(1);
+                int on = line.indexOf(" on ");
+                if (line.contains("Scan") && on >= 0) {
+                    tables.add(line.substring(on + 4).trim().split(" ")[0]);
+                }
+            }
+        }
+        return tables;
+    }
+
+    private static long count(Statement statement, String sql) throws SQLException {
+        try (ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static String partition(String table, LocalDate month) {
+        return String.format("%s_y%04dm%02d", table, month.getYear(), month.getMonthValue());
+    }
+}
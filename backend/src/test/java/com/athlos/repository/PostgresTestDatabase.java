@@ -0,0 +1,72 @@
+package com.athlos.repository;
+
+import org.flywaydb.core.Flyway;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * The PostgreSQL database tests run against: the one named by {@code -Dathlos.test.db-url} (already
+ * migrated), or else a PostGIS container started once per test run and migrated with the
+ * application's Flyway scripts. Without either the tests are skipped, unless
+ * {@code -Dathlos.test.require-db=true} (the {@code db-tests} profile) makes them run and fail.
+ */
+final class PostgresTestDatabase {
+
+    // Same image as docker-compose.yml
+    private static final DockerImageName IMAGE = DockerImageName.parse("postgis/postgis:15-3.3")
+            .asCompatibleSubstituteFor("postgres");
+
+    private static PostgreSQLContainer<?> container;
+
+    private PostgresTestDatabase() {
+    }
+
+    // Referenced by @EnabledIf on the database tests
+    static boolean isAvailable() {
+        return Boolean.getBoolean("athlos.test.require-db") || configuredUrl() != null
+                || DockerClientFactory.instance().isDockerAvailable();
+    }
+
+    static String url() {
+        return configuredUrl() != null ? configuredUrl() : container().getJdbcUrl();
+    }
+
+    static String user() {
+        return configuredUrl() != null ? System.getProperty("athlos.test.db-user") : container().getUsername();
+    }
+
+    static String password() {
+        return configuredUrl() != null ? System.getProperty("athlos.test.db-password") : container().getPassword();
+    }
+
+    static Connection connect() throws SQLException {
+        return DriverManager.getConnection(url(), user(), password());
+    }
+
+    private static String configuredUrl() {
+        String url = System.getProperty("athlos.test.db-url");
+        return url == null || url.isBlank() ? null : url;
+    }
+
+    // Left running for the rest of the JVM; Testcontainers removes it when the run ends
+    private static synchronized PostgreSQLContainer<?> container() {
+        if (container == null) {
+            PostgreSQLContainer<?> started = new PostgreSQLContainer<>(IMAGE)
+                    .withDatabaseName("athlos_db")
+                    .withUsername("athlos_user")
+                    .withPassword("athlos_password");
+            started.start();
+            Flyway.configure()
+                    .dataSource(started.getJdbcUrl(), started.getUsername(), started.getPassword())
+                    .load()
+                    .migrate();
+            container = started;
+        }
+        return container;
+    }
+}
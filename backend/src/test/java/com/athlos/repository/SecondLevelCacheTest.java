@@ -0,0 +1,135 @@
+package com.athlos.repository;
+
+import com.athlos.entity.Run;
+import com.athlos.entity.RunPoint;
+import com.athlos.entity.Territory;
+import com.athlos.entity.User;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.jpa.HibernateHints;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the statements the profile and active-run lookups send to the database with the
+ * second-level cache on and off, each request in a session of its own as in the application.
+ * Runs against the {@link PostgresTestDatabase}; the user and run it creates are deleted afterwards.
+ */
+@EnabledIf("com.athlos.repository.PostgresTestDatabase#isAvailable")
+class SecondLevelCacheTest {
+
+    private static final int REQUESTS = 100;
+
+    private SessionFactory cached;
+    private SessionFactory uncached;
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        cached = sessionFactory(true);
+        uncached = sessionFactory(false);
+        try (Session session = uncached.openSession()) {
+            session.beginTransaction();
+            User user = new User("cache-test-" + System.nanoTime() + "@test", "x", "Cache Test");
+            session.persist(user);
+            session.persist(new Run(user));
+            session.getTransaction().commit();
+            userId = user.getId();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        try (Session session = uncached.openSession()) {
+            session.beginTransaction();
+            session.createNativeMutationQuery("DELETE FROM runs WHERE user_id = :user").setParameter("user", userId).executeUpdate();
+            session.createNativeMutationQuery("DELETE FROM users WHERE id = :user").setParameter("user", userId).executeUpdate();
+            session.getTransaction().commit();
+        }
+        cached.close();
+        uncached.close();
+    }
+
+    @Test
+    void profileReadsHitTheDatabaseOnceWithTheCache() {
+        assertThat(statementsFor(uncached, this::loadProfile)).isEqualTo(REQUESTS);
+        assertThat(statementsFor(cached, this::loadProfile)).isEqualTo(1);
+    }
+
+    @Test
+    void activeRunLookupsHitTheDatabaseOnceWithTheCache() {
+        assertThat(statementsFor(uncached, this::findActiveRun)).isEqualTo(REQUESTS);
+        assertThat(statementsFor(cached, this::findActiveRun)).isEqualTo(1);
+    }
+
+    @Test
+    void savingTheUserInvalidatesItsCachedProfile() {
+        loadProfile(cached);
+        try (Session session = cached.openSession()) {
+            session.beginTransaction();
+            session.get(User.class, userId).setName("Renamed");
+            session.getTransaction().commit();
+        }
+        try (Session session = cached.openSession()) {
+            assertThat(session.get(User.class, userId).getName()).isEqualTo("Renamed");
+        }
+    }
+
+    private long statementsFor(SessionFactory sessionFactory, Consumer<SessionFactory> request) {
+        sessionFactory.getStatistics().clear();
+        for (int i = 0; i < REQUESTS; i++) {
+            request.accept(sessionFactory);
+        }
+        return sessionFactory.getStatistics().getPrepareStatementCount();
+    }
+
+    // UserService.getUserById
+    private void loadProfile(SessionFactory sessionFactory) {
+        try (Session session = sessionFactory.openSession()) {
+            assertThat(session.get(User.class, userId)).isNotNull();
+        }
+    }
+
+    // RunRepository.findByUserAndIsActiveTrue, with the same hints
+    private void findActiveRun(SessionFactory sessionFactory) {
+        try (Session session = sessionFactory.openSession()) {
+            Optional<Run> run = session.createQuery("SELECT r FROM Run r WHERE r.user = :user AND r.isActive = true", Run.class)
+                    .setParameter("user", session.getReference(User.class, userId))
+                    .setHint(HibernateHints.HINT_CACHEABLE, true)
+                    .setHint(HibernateHints.HINT_CACHE_REGION, RunRepository.ACTIVE_RUN_CACHE_REGION)
+                    .uniqueResultOptional();
+            assertThat(run).isPresent();
+        }
+    }
+
+    // The cache settings of spring.jpa.properties in application.yml; regions come from application.conf
+    private static SessionFactory sessionFactory(boolean cache) {
+        Configuration configuration = new Configuration()
+                .addAnnotatedClass(User.class)
+                .addAnnotatedClass(Run.class)
+                .addAnnotatedClass(RunPoint.class)
+                .addAnnotatedClass(Territory.class)
+                .setProperty("hibernate.connection.url", PostgresTestDatabase.url())
+                .setProperty("hibernate.connection.username", PostgresTestDatabase.user())
+                .setProperty("hibernate.connection.password", PostgresTestDatabase.password())
+                .setProperty("hibernate.dialect", "org.hibernate.spatial.dialect.postgis.PostgisPG95Dialect")
+                .setProperty("hibernate.generate_statistics", "true")
+                .setProperty("hibernate.cache.use_second_level_cache", String.valueOf(cache))
+                .setProperty("hibernate.cache.use_query_cache", String.valueOf(cache));
+        if (cache) {
+            configuration
+                    .setProperty("hibernate.cache.region.factory_class", "jcache")
+                    .setProperty("hibernate.javax.cache.provider", "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider")
+                    .setProperty("hibernate.javax.cache.missing_cache_strategy", "fail");
+        }
+        return configuration.buildSessionFactory();
+    }
+}
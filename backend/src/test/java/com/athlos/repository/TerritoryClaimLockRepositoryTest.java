@@ -0,0 +1,94 @@
+package com.athlos.repository;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashSet;
+import java.util.List;
+
+import static com.athlos.repository.TerritoryClaimLockRepository.cellKeys;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class TerritoryClaimLockRepositoryTest {
+
+    @Test
+    void coversEveryCellTouchedByTheEnvelope() {
+        // Three columns by two rows of 0.02 degree cells
+        List<Long> keys = cellKeys(new Envelope(4.890, 4.935, 52.361, 52.385), 256);
+
+        assertThat(keys).hasSize(6).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void keysAreAscendingAcrossTheOrigin() {
+        List<Long> keys = cellKeys(new Envelope(-0.03, 0.03, -0.03, 0.03), 256);
+
+        assertThat(keys).hasSize(16).isSorted();
+    }
+
+    @Test
+    void overlappingEnvelopesShareACell() {
+        List<Long> first = cellKeys(new Envelope(4.890, 4.900, 52.370, 52.375), 256);
+        List<Long> second = cellKeys(new Envelope(4.899, 4.905, 52.374, 52.379), 256);
+
+        assertThat(new HashSet<>(first)).containsAnyElementsOf(second);
+    }
+
+    @Test
+    void distantEnvelopesShareNoCell() {
+        List<Long> amsterdam = cellKeys(new Envelope(4.890, 4.900, 52.370, 52.375), 256);
+        List<Long> sydney = cellKeys(new Envelope(151.20, 151.21, -33.87, -33.86), 256);
+
+        assertThat(new HashSet<>(amsterdam)).doesNotContainAnyElementsOf(sydney);
+    }
+
+    @Test
+    void envelopesOverTheCapTouchNoCells() {
+        assertThat(cellKeys(new Envelope(-180, 180, -90, 90), 256)).isEmpty();
+        assertThat(cellKeys(new Envelope(0, 1e300, 0, 1e300), 256)).isEmpty();
+        assertThat(cellKeys(new Envelope(4.890, 4.935, 52.361, 52.385), 5)).isEmpty();
+    }
+
+    @Test
+    void takesTheCellLocksInOneStatement() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        TerritoryClaimLockRepository repository = repository(jdbcTemplate, 256);
+
+        repository.lockCells(new Envelope(4.890, 4.935, 52.361, 52.385));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object> keys = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate, times(1)).queryForList(sql.capture(), keys.capture());
+        assertThat(sql.getValue()).contains("unnest").contains("ORDER BY k");
+        // The six cells plus the shared all-cells lock
+        assertThat((Long[]) keys.getValue()).hasSize(7).contains(TerritoryClaimLockRepository.ALL_CELLS_KEY);
+    }
+
+    @Test
+    void aClaimOverTheCapTakesTheAllCellsLockAlone() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        TerritoryClaimLockRepository repository = repository(jdbcTemplate, 5);
+
+        repository.lockCells(new Envelope(4.890, 4.935, 52.361, 52.385));
+
+        verify(jdbcTemplate).queryForList(anyString(), eq(TerritoryClaimLockRepository.ALL_CELLS_KEY));
+        verify(jdbcTemplate, times(1)).queryForList(anyString(), any(Object[].class));
+    }
+
+    private static TerritoryClaimLockRepository repository(JdbcTemplate jdbcTemplate, int maxLockCells) {
+        TerritoryClaimLockRepository repository = new TerritoryClaimLockRepository();
+        ReflectionTestUtils.setField(repository, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(repository, "maxLockCells", maxLockCells);
+        return repository;
+    }
+}
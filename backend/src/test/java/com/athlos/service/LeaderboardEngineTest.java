@@ -0,0 +1,59 @@
+package com.athlos.service;
+
+import com.athlos.dto.LeaderboardEntryDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class LeaderboardEngineTest {
+
+    private LeaderboardEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new LeaderboardEngine();
+        engine.updateUserName(1L, "Ann");
+        engine.recordProgress(1L, LocalDateTime.now(), 500, 400.0);
+    }
+
+    @Test
+    void territoriesOfAnUnknownUserDoNotGoNegative() {
+        engine.adjustTerritories(1L, -1);
+
+        assertThat(territories(1L)).isZero();
+    }
+
+    @Test
+    void territoriesAreClampedAtZeroOnceKnown() {
+        engine.adjustTerritories(1L, 2);
+        engine.adjustTerritories(1L, -3);
+
+        assertThat(territories(1L)).isZero();
+
+        engine.adjustTerritories(1L, 1);
+        assertThat(territories(1L)).isEqualTo(1);
+    }
+
+    @Test
+    void tiedUsersGetDistinctRanksByUserId() {
+        engine.updateUserName(3L, "Cy");
+        engine.recordProgress(3L, LocalDateTime.now(), 500, 400.0);
+        engine.updateUserName(2L, "Bo");
+        engine.recordProgress(2L, LocalDateTime.now(), 500, 400.0);
+
+        assertThat(engine.top(LeaderboardPeriod.ALL_TIME, 10))
+                .extracting(LeaderboardEntryDTO::getUserId, LeaderboardEntryDTO::getRank)
+                .containsExactly(tuple(1L, 1), tuple(2L, 2), tuple(3L, 3));
+        assertThat(engine.entryFor(LeaderboardPeriod.ALL_TIME, 3L).map(LeaderboardEntryDTO::getRank)).contains(3);
+    }
+
+    private int territories(Long userId) {
+        return engine.entryFor(LeaderboardPeriod.ALL_TIME, userId)
+                .map(LeaderboardEntryDTO::getTerritoriesClaimed)
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,77 @@
+package com.athlos.service;
+
+import com.athlos.config.StompDestinations;
+import com.athlos.dto.LeaderboardDeltaDTO;
+import com.athlos.dto.LeaderboardEntryDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LeaderboardPublisherTest {
+
+    private LeaderboardService leaderboardService;
+    private LeaderboardEngine leaderboardEngine;
+    private SimpMessagingTemplate messagingTemplate;
+    private LeaderboardPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        leaderboardService = mock(LeaderboardService.class);
+        leaderboardEngine = mock(LeaderboardEngine.class);
+        messagingTemplate = mock(SimpMessagingTemplate.class);
+        publisher = new LeaderboardPublisher();
+        ReflectionTestUtils.setField(publisher, "leaderboardService", leaderboardService);
+        ReflectionTestUtils.setField(publisher, "leaderboardEngine", leaderboardEngine);
+        ReflectionTestUtils.setField(publisher, "messagingTemplate", messagingTemplate);
+    }
+
+    @Test
+    void publishesOnlyTheEntriesThatMoved() {
+        when(leaderboardService.getLeaderboard(LeaderboardPeriod.DAILY)).thenReturn(List.of(
+                entry(1L, 500, 1), entry(2L, 400, 2), entry(3L, 300, 3)));
+        assertThat(publisher.getSnapshot(LeaderboardPeriod.DAILY).getVersion()).isEqualTo(1L);
+
+        when(leaderboardEngine.drainDirtyPeriods()).thenReturn(Set.of(LeaderboardPeriod.DAILY));
+        when(leaderboardService.getLeaderboard(LeaderboardPeriod.DAILY)).thenReturn(List.of(
+                entry(1L, 500, 1), entry(3L, 450, 2), entry(2L, 400, 3)));
+        publisher.publishChanges();
+
+        ArgumentCaptor<Object> sent = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate).convertAndSend(eq(StompDestinations.leaderboardDeltas("daily")), sent.capture());
+        LeaderboardDeltaDTO delta = (LeaderboardDeltaDTO) sent.getValue();
+        assertThat(delta.getBaseVersion()).isEqualTo(1L);
+        assertThat(delta.getVersion()).isEqualTo(2L);
+        assertThat(delta.getUpserts()).extracting(LeaderboardEntryDTO::getUserId).containsExactly(3L, 2L);
+        assertThat(delta.getRemovedUserIds()).isEmpty();
+        assertThat(publisher.getSnapshot(LeaderboardPeriod.DAILY).getVersion()).isEqualTo(2L);
+    }
+
+    @Test
+    void sendsNothingWhenTheBoardDidNotChange() {
+        when(leaderboardService.getLeaderboard(LeaderboardPeriod.WEEKLY)).thenReturn(List.of(entry(1L, 500, 1)));
+        publisher.getSnapshot(LeaderboardPeriod.WEEKLY);
+
+        when(leaderboardEngine.drainDirtyPeriods()).thenReturn(Set.of(LeaderboardPeriod.WEEKLY));
+        publisher.publishChanges();
+
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+    }
+
+    private static LeaderboardEntryDTO entry(Long userId, int steps, int rank) {
+        return new LeaderboardEntryDTO(userId, "Runner " + userId, null, steps, rank);
+    }
+}
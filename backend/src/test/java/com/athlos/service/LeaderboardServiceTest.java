@@ -0,0 +1,74 @@
+package com.athlos.service;
+
+import com.athlos.repository.RunRepository;
+import com.athlos.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class LeaderboardServiceTest {
+
+    @Test
+    void acceptsSourcesInAnyCase() {
+        LeaderboardService service = withSources("memory", " SQL ", "Memory");
+
+        assertThatCode(service::init).doesNotThrowAnyException();
+    }
+
+    @Test
+    void failsAtStartupOnAnUnknownSource() {
+        LeaderboardService service = withSources("memory", "sqll", "memory");
+
+        assertThatThrownBy(service::init)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("leaderboard.source.weekly");
+    }
+
+    @Test
+    void servesInMemoryBoardsWithoutQueryingTheDatabase() {
+        RunRepository runRepository = mock(RunRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        LeaderboardService service = withSources("memory", "memory", "sql");
+        ReflectionTestUtils.setField(service, "leaderboardEngine", engine(userRepository));
+        ReflectionTestUtils.setField(service, "runRepository", runRepository);
+        service.init();
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(service.getDailyLeaderboard()).hasSize(1);
+            assertThat(service.getWeeklyLeaderboard()).hasSize(1);
+            assertThat(service.getUserStanding(LeaderboardPeriod.ALL_TIME, 1L)).isPresent();
+        }
+        service.getAllTimeLeaderboard();
+
+        verifyNoInteractions(userRepository);
+        // Only the board configured as sql goes to the database, once per request
+        verify(runRepository, times(1)).getRankedLeaderboard(any(), any(), anyInt());
+    }
+
+    private static LeaderboardEngine engine(UserRepository userRepository) {
+        LeaderboardEngine engine = new LeaderboardEngine();
+        ReflectionTestUtils.setField(engine, "userRepository", userRepository);
+        engine.updateUserName(1L, "Ann");
+        engine.recordProgress(1L, LocalDateTime.now(), 500, 400.0);
+        return engine;
+    }
+
+    private static LeaderboardService withSources(String daily, String weekly, String allTime) {
+        LeaderboardService service = new LeaderboardService();
+        ReflectionTestUtils.setField(service, "dailySource", daily);
+        ReflectionTestUtils.setField(service, "weeklySource", weekly);
+        ReflectionTestUtils.setField(service, "allTimeSource", allTime);
+        return service;
+    }
+}
@@ -0,0 +1,52 @@
+package com.athlos.service;
+
+import com.athlos.dto.NearbyRunnerDTO;
+import com.athlos.util.GeoMath;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LiveLocationServiceTest {
+
+    @Test
+    void nearestMatchesALinearScan() {
+        Random random = new Random(5);
+        LiveLocationService service = new LiveLocationService();
+        double[][] runners = new double[5000][];
+        for (int i = 0; i < runners.length; i++) {
+            runners[i] = new double[] {52.37 + (random.nextDouble() - 0.5) * 0.3, 4.9 + (random.nextDouble() - 0.5) * 0.4};
+            service.update((long) i, runners[i][0], runners[i][1]);
+        }
+
+        for (int q = 0; q < 100; q++) {
+            double lat = 52.37 + (random.nextDouble() - 0.5) * 0.3;
+            double lon = 4.9 + (random.nextDouble() - 0.5) * 0.4;
+            double radius = q % 2 == 0 ? 400 : 8000;
+            List<Long> expected = IntStream.range(0, runners.length).boxed()
+                    .filter(i -> GeoMath.haversineMeters(lat, lon, runners[i][0], runners[i][1]) <= radius)
+                    .sorted(Comparator.comparingDouble(i -> GeoMath.haversineMeters(lat, lon, runners[i][0], runners[i][1])))
+                    .limit(10)
+                    .map(Long::valueOf)
+                    .toList();
+
+            List<Long> actual = service.nearest(lat, lon, 10, radius).stream().map(NearbyRunnerDTO::getUserId).toList();
+
+            assertThat(actual).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void followsRunnersAcrossCells() {
+        LiveLocationService service = new LiveLocationService();
+        service.update(1L, 52.37, 4.90);
+        service.update(1L, 48.85, 2.35);
+
+        assertThat(service.nearest(52.37, 4.90, 5, 1000)).isEmpty();
+        assertThat(service.nearest(48.85, 2.35, 5, 1000)).extracting(NearbyRunnerDTO::getUserId).containsExactly(1L);
+    }
+}
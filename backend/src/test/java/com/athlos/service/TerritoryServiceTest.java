@@ -0,0 +1,229 @@
+package com.athlos.service;
+
+import com.athlos.entity.Run;
+import com.athlos.entity.Territory;
+import com.athlos.entity.User;
+import com.athlos.repository.RunRepository;
+import com.athlos.repository.TerritoryClaimLockRepository;
+import com.athlos.repository.TerritoryRepository;
+import com.athlos.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TerritoryServiceTest {
+
+    private final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), 4326);
+
+    private TerritoryRepository territoryRepository;
+    private TerritoryClaimLockRepository claimLocks;
+    private TerritoryService service;
+    private User runner;
+    private User rival;
+    private Run run;
+    private final List<Territory> existing = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        territoryRepository = mock(TerritoryRepository.class);
+        claimLocks = mock(TerritoryClaimLockRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        RunRepository runRepository = mock(RunRepository.class);
+        runner = user(1L);
+        rival = user(2L);
+        run = new Run(runner);
+        run.setId(10L);
+        when(userRepository.getReferenceById(1L)).thenReturn(runner);
+        when(runRepository.getReferenceById(10L)).thenReturn(run);
+        when(territoryRepository.lockActiveInEnvelope(anyDouble(), anyDouble(), anyDouble(), anyDouble()))
+                .thenReturn(existing);
+
+        service = new TerritoryService();
+        ReflectionTestUtils.setField(service, "territoryRepository", territoryRepository);
+        ReflectionTestUtils.setField(service, "territoryClaimLockRepository", claimLocks);
+        ReflectionTestUtils.setField(service, "userRepository", userRepository);
+        ReflectionTestUtils.setField(service, "runRepository", runRepository);
+        // claimTerritory registers its after-commit work with the surrounding transaction
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void claimsTheAreaInsideAClosedLoop() {
+        Polygon claimed = service.claimTerritory(run, loop(0, 0, 0.002));
+
+        // The loop plus its ~5m smoothing buffer
+        assertThat(claimed.getArea()).isCloseTo(0.002 * 0.002, within(0.002 * 0.002 * 0.12));
+        assertThat(claimed.contains(point(0.001, 0.001))).isTrue();
+        assertThat(saved()).hasSize(1);
+        verify(claimLocks).lockCells(any());
+    }
+
+    @Test
+    void closesALoopThatEndsNearItsStart() {
+        LineString almostClosed = line(0, 0, 0.002, 0, 0.002, 0.002, 0, 0.002, 0.0001, 0.0001);
+
+        Polygon claimed = service.claimTerritory(run, almostClosed);
+
+        assertThat(claimed.contains(point(0.001, 0.001))).isTrue();
+    }
+
+    @Test
+    void claimsACorridorAlongAPathWithoutLoops() {
+        Polygon claimed = service.claimTerritory(run, line(0, 0, 0.005, 0, 0.01, 0));
+
+        assertThat(claimed.contains(point(0.005, 0.0001))).isTrue();
+        assertThat(claimed.contains(point(0.005, 0.001))).isFalse();
+    }
+
+    @Test
+    void takesOverlappingGroundFromARivalAndLeavesTheRemainder() {
+        Territory rivals = territory(rival, square(0.001, 0, 0.004, 0.002));
+        existing.add(rivals);
+
+        Polygon claimed = service.claimTerritory(run, loop(0, 0, 0.002));
+
+        assertThat(rivals.getIsActive()).isFalse();
+        List<Territory> saved = saved();
+        List<Territory> remainders = saved.stream().filter(t -> t.getUser() == rival).toList();
+        assertThat(remainders).hasSize(1);
+        Geometry remainder = remainders.get(0).getPolygon();
+        assertThat(remainder.intersection(claimed).getArea()).isLessThan(1e-12);
+        assertThat(remainder.contains(point(0.003, 0.001))).isTrue();
+        assertThat(remainder.getArea() + claimed.intersection(square(0.001, 0, 0.004, 0.002)).getArea())
+                .isCloseTo(0.003 * 0.002, within(1e-10));
+    }
+
+    @Test
+    void splitsARivalTerritoryCutInTwo() {
+        Territory rivals = territory(rival, square(-0.002, 0.0008, 0.004, 0.0012));
+        existing.add(rivals);
+
+        service.claimTerritory(run, loop(0, 0, 0.002));
+
+        assertThat(saved().stream().filter(t -> t.getUser() == rival)).hasSize(2);
+    }
+
+    @Test
+    void absorbsTheRunnersOwnOverlappingTerritory() {
+        Territory own = territory(runner, square(0.001, 0, 0.004, 0.002));
+        existing.add(own);
+
+        Polygon claimed = service.claimTerritory(run, loop(0, 0, 0.002));
+
+        assertThat(own.getIsActive()).isFalse();
+        assertThat(saved()).hasSize(1);
+        assertThat(claimed.contains(point(0.0035, 0.001))).isTrue();
+    }
+
+    @Test
+    void leavesTerritoriesThatOnlyShareTheBoundingBox() {
+        // An L-shaped rival territory wrapping around the claim without touching it
+        Territory rivals = territory(rival, (Polygon) square(-0.001, -0.001, 0.004, 0.004)
+                .difference(square(-0.0005, -0.0005, 0.0035, 0.0035)).getGeometryN(0));
+        existing.add(rivals);
+
+        service.claimTerritory(run, loop(0, 0, 0.002));
+
+        assertThat(rivals.getIsActive()).isTrue();
+    }
+
+    @Test
+    void ignoresAGpsSpikeWhenLockingTheClaim() {
+        LineString withSpike = line(0, 0, 0.002, 0, 0.002, 0.002, 1.5, 1.5, 0, 0.002, 0, 0);
+
+        Polygon claimed = service.claimTerritory(run, withSpike);
+
+        ArgumentCaptor<Envelope> locked = ArgumentCaptor.forClass(Envelope.class);
+        verify(claimLocks).lockCells(locked.capture());
+        assertThat(locked.getValue().getMaxX()).isLessThan(0.003);
+        assertThat(claimed.contains(point(0.001, 0.001))).isTrue();
+    }
+
+    @Test
+    void dropsFixesOffTheGlobeAndSpikesAtEitherEnd() {
+        Coordinate[] kept = TerritoryService.withoutOutliers(new Coordinate[] {
+                new Coordinate(40, 40), new Coordinate(0, 0), new Coordinate(0.001, 0), new Coordinate(Double.NaN, 0),
+                new Coordinate(0.002, 0), new Coordinate(500, 0), new Coordinate(0.003, 0), new Coordinate(-40, -40)});
+
+        assertThat(kept).extracting(c -> c.x).containsExactly(0.0, 0.001, 0.002, 0.003);
+    }
+
+    @Test
+    void keepsAPathThatResumesFarAway() {
+        // A gap in the fixes, not a spike: the runner carries on from the new position
+        Coordinate[] path = {new Coordinate(0, 0), new Coordinate(0.001, 0), new Coordinate(0.1, 0), new Coordinate(0.101, 0)};
+
+        assertThat(TerritoryService.withoutOutliers(path)).hasSize(4);
+    }
+
+    @Test
+    void claimsNothingForTooShortAPath() {
+        assertThat(service.claimTerritory(run, line(0, 0, 0.001, 0))).isNull();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Territory> saved() {
+        ArgumentCaptor<List<Territory>> captor = ArgumentCaptor.forClass(List.class);
+        verify(territoryRepository).saveAll(captor.capture());
+        return captor.getValue();
+    }
+
+    private Territory territory(User owner, Polygon polygon) {
+        Territory territory = new Territory(owner, run, polygon);
+        territory.setId((long) existing.size() + 100);
+        return territory;
+    }
+
+    private LineString loop(double x, double y, double size) {
+        return line(x, y, x + size, y, x + size, y + size, x, y + size, x, y);
+    }
+
+    private LineString line(double... xy) {
+        Coordinate[] coordinates = new Coordinate[xy.length / 2];
+        for (int i = 0; i < coordinates.length; i++) {
+            coordinates[i] = new Coordinate(xy[2 * i], xy[2 * i + 1]);
+        }
+        return geometryFactory.createLineString(coordinates);
+    }
+
+    private Polygon square(double minX, double minY, double maxX, double maxY) {
+        return geometryFactory.createPolygon(new Coordinate[] {new Coordinate(minX, minY), new Coordinate(maxX, minY),
+                new Coordinate(maxX, maxY), new Coordinate(minX, maxY), new Coordinate(minX, minY)});
+    }
+
+    private Geometry point(double x, double y) {
+        return geometryFactory.createPoint(new Coordinate(x, y));
+    }
+
+    private static User user(Long id) {
+        User user = new User("u" + id + "@example.com", "x", "User " + id);
+        user.setId(id);
+        return user;
+    }
+}
@@ -0,0 +1,92 @@
+package com.athlos.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TerritoryTileServiceTest {
+
+    // Tile 10/525/336 covers central Amsterdam
+    private static final Envelope AMSTERDAM = new Envelope(4.89, 4.90, 52.37, 52.375);
+    private static final Envelope SYDNEY = new Envelope(151.20, 151.21, -33.87, -33.86);
+
+    private TerritorySpatialIndex index;
+    private TerritoryTileService tiles;
+
+    @BeforeEach
+    void setUp() {
+        index = mock(TerritorySpatialIndex.class);
+        when(index.query(any(Envelope.class))).thenReturn(List.of());
+        tiles = new TerritoryTileService();
+        ReflectionTestUtils.setField(tiles, "territorySpatialIndex", index);
+        ReflectionTestUtils.setField(tiles, "cacheSize", 100L);
+        tiles.init();
+    }
+
+    @Test
+    void servesRepeatedRequestsFromTheCache() {
+        tiles.getTile(10, 525, 336);
+        tiles.getTile(10, 525, 336);
+
+        verify(index, times(1)).query(any(Envelope.class));
+    }
+
+    @Test
+    void invalidatesOnlyTilesTouchedByTheChange() {
+        tiles.getTile(10, 525, 336);
+        tiles.getTile(0, 0, 0);
+
+        tiles.invalidate(List.of(SYDNEY));
+        tiles.getTile(10, 525, 336);
+        verify(index, times(2)).query(any(Envelope.class)); // only the world tile was rendered again
+
+        tiles.invalidate(List.of(AMSTERDAM));
+        tiles.getTile(10, 525, 336);
+        tiles.getTile(0, 0, 0);
+        verify(index, times(4)).query(any(Envelope.class));
+    }
+
+    @Test
+    void invalidatesLargeChangesAtDeepZooms() {
+        tiles.getTile(22, 2154240, 1378560);
+
+        // Covers far more zoom-22 tiles than the cache holds
+        tiles.invalidate(List.of(new Envelope(4.0, 6.0, 52.0, 53.0)));
+        tiles.getTile(22, 2154240, 1378560);
+
+        verify(index, times(2)).query(any(Envelope.class));
+    }
+
+    @Test
+    void doesNotCacheARenderThatOverlapsAnInvalidation() throws Exception {
+        CountDownLatch rendering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(index.query(any(Envelope.class))).thenAnswer(invocation -> {
+            rendering.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        CompletableFuture<byte[]> inFlight = CompletableFuture.supplyAsync(() -> tiles.getTile(10, 525, 336));
+        rendering.await(5, TimeUnit.SECONDS);
+
+        tiles.invalidate(List.of(AMSTERDAM));
+        release.countDown();
+        inFlight.get(5, TimeUnit.SECONDS);
+
+        when(index.query(any(Envelope.class))).thenReturn(List.of());
+        tiles.getTile(10, 525, 336);
+        verify(index, times(2)).query(any(Envelope.class));
+    }
+}
@@ -0,0 +1,29 @@
+package com.athlos.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class GeoMathTest {
+
+    @Test
+    void matchesKnownGreatCircleDistances() {
+        // Paris - London on a sphere of the mean Earth radius
+        assertThat(GeoMath.haversineMeters(48.8566, 2.3522, 51.5074, -0.1278)).isCloseTo(343_560, within(500.0));
+        // One degree of longitude along the equator
+        assertThat(GeoMath.haversineMeters(0, 0, 0, 1)).isCloseTo(111_195, within(1.0));
+    }
+
+    @Test
+    void isSymmetricAndZeroForTheSamePoint() {
+        assertThat(GeoMath.haversineMeters(52.37, 4.89, 52.37, 4.89)).isZero();
+        assertThat(GeoMath.haversineMeters(52.37, 4.89, 52.38, 4.90))
+                .isEqualTo(GeoMath.haversineMeters(52.38, 4.90, 52.37, 4.89));
+    }
+
+    @Test
+    void staysFiniteForAntipodes() {
+        assertThat(GeoMath.haversineMeters(0, 0, 0, 180)).isCloseTo(Math.PI * GeoMath.EARTH_RADIUS_METERS, within(1e-6));
+    }
+}
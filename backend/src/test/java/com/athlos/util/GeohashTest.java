@@ -0,0 +1,64 @@
+package com.athlos.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GeohashTest {
+
+    @Test
+    void encodesKnownPoints() {
+        assertThat(Geohash.encode(57.64911, 10.40744, 11)).isEqualTo("u4pruydqqvj");
+        assertThat(Geohash.encode(52.3702, 4.8952, 5)).isEqualTo("u173z");
+    }
+
+    @Test
+    void boundsContainTheEncodedPoint() {
+        double[] bounds = Geohash.bounds(Geohash.encode(-33.8688, 151.2093, 7));
+
+        assertThat(bounds[0]).isLessThanOrEqualTo(-33.8688);
+        assertThat(bounds[2]).isGreaterThan(-33.8688);
+        assertThat(bounds[1]).isLessThanOrEqualTo(151.2093);
+        assertThat(bounds[3]).isGreaterThan(151.2093);
+    }
+
+    @Test
+    void centreOfACellEncodesBackToIt() {
+        String hash = "dr5ru";
+        double[] b = Geohash.bounds(hash);
+
+        assertThat(Geohash.encode((b[0] + b[2]) / 2, (b[1] + b[3]) / 2, hash.length())).isEqualTo(hash);
+    }
+
+    @Test
+    void ringsHoldTheCellsAtThatDistance() {
+        assertThat(Geohash.ring("u173z", 0)).containsExactly("u173z");
+        List<String> first = Geohash.ring("u173z", 1);
+        List<String> second = Geohash.ring("u173z", 2);
+
+        assertThat(first).hasSize(8).doesNotHaveDuplicates().doesNotContain("u173z");
+        assertThat(second).hasSize(16).doesNotContainAnyElementsOf(first);
+        // Every cell of the first ring borders the centre cell
+        double[] centre = Geohash.bounds("u173z");
+        for (String cell : first) {
+            double[] b = Geohash.bounds(cell);
+            assertThat(b[0] <= centre[2] + 1e-9 && b[2] >= centre[0] - 1e-9
+                    && b[1] <= centre[3] + 1e-9 && b[3] >= centre[1] - 1e-9).isTrue();
+        }
+    }
+
+    @Test
+    void ringsWrapAcrossTheAntimeridian() {
+        String east = Geohash.encode(0.01, 179.99, 5);
+
+        assertThat(Geohash.ring(east, 1)).contains(Geohash.encode(0.01, -179.99, 5));
+    }
+
+    @Test
+    void rejectsCharactersOutsideTheAlphabet() {
+        assertThatThrownBy(() -> Geohash.bounds("u17a")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
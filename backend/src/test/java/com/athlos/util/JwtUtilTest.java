@@ -0,0 +1,47 @@
+package com.athlos.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "mySecretKey123456789012345678901234567890";
+
+    @Test
+    void verifiesSubjectAndUserIdInOneParse() {
+        JwtUtil jwtUtil = jwtUtil(SECRET, 60_000);
+        String token = jwtUtil.generateToken("ann@example.com", 42L);
+
+        JwtUtil.VerifiedToken verified = jwtUtil.verify(token).orElseThrow();
+
+        assertThat(verified.getSubject()).isEqualTo("ann@example.com");
+        assertThat(verified.getUserId()).isEqualTo(42L);
+        assertThat(jwtUtil.verify(token)).containsSame(verified);
+        assertThat(jwtUtil.validateToken(token, "ann@example.com")).isTrue();
+        assertThat(jwtUtil.validateToken(token, "bob@example.com")).isFalse();
+    }
+
+    @Test
+    void rejectsTamperedForeignAndExpiredTokens() {
+        JwtUtil jwtUtil = jwtUtil(SECRET, 60_000);
+        String token = jwtUtil.generateToken("ann@example.com", 42L);
+        String foreign = jwtUtil("anotherSecretKey12345678901234567890123456", 60_000).generateToken("ann@example.com", 42L);
+        String expired = jwtUtil(SECRET, -1_000).generateToken("ann@example.com", 42L);
+
+        assertThat(jwtUtil.verify(token.substring(0, token.length() - 2) + "xx")).isEmpty();
+        assertThat(jwtUtil.verify(foreign)).isEmpty();
+        assertThat(jwtUtil.verify(expired)).isEmpty();
+        assertThat(jwtUtil.verify("not-a-jwt")).isEmpty();
+    }
+
+    private static JwtUtil jwtUtil(String secret, long expirationMs) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", secret);
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpirationMs", expirationMs);
+        ReflectionTestUtils.setField(jwtUtil, "cacheSize", 100L);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+}
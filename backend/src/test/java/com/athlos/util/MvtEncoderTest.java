@@ -0,0 +1,267 @@
+package com.athlos.util;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Polygon;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MvtEncoderTest {
+
+    private final GeometryFactory geometryFactory = new GeometryFactory();
+
+    @Test
+    void writesLayerHeaderFeatureAndProperties() {
+        MvtEncoder encoder = new MvtEncoder("territories");
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("userId", 42);
+        properties.put("areaSquareMeters", 1250.5);
+        properties.put("name", "park");
+        properties.put("missing", null);
+        encoder.addPolygonFeature(7, square(100, 100, 200, 200), properties);
+
+        Layer layer = Layer.decode(encoder.encode());
+
+        assertThat(layer.version).isEqualTo(2);
+        assertThat(layer.name).isEqualTo("territories");
+        assertThat(layer.extent).isEqualTo(MvtEncoder.DEFAULT_EXTENT);
+        assertThat(layer.features).hasSize(1);
+        Feature feature = layer.features.get(0);
+        assertThat(feature.id).isEqualTo(7);
+        assertThat(feature.type).isEqualTo(3);
+        assertThat(layer.properties(feature)).containsExactly(
+                Map.entry("userId", 42L), Map.entry("areaSquareMeters", 1250.5), Map.entry("name", "park"));
+    }
+
+    @Test
+    void roundTripsRingsWithExteriorsClockwiseAndHolesCounterClockwise() {
+        Polygon withHole = geometryFactory.createPolygon(
+                ring(0, 0, 1000, 0, 1000, 1000, 0, 1000, 0, 0),            // counter-clockwise on screen
+                new LinearRing[] {ring(200, 200, 200, 800, 800, 800, 800, 200, 200, 200)});
+        MvtEncoder encoder = new MvtEncoder("t");
+        encoder.addPolygonFeature(1, withHole, Map.of());
+
+        List<List<int[]>> rings = Layer.decode(encoder.encode()).features.get(0).rings();
+
+        assertThat(rings).hasSize(2);
+        assertThat(rings.get(0)).hasSize(4);
+        assertThat(signedArea(rings.get(0))).isEqualTo(2L * 1000 * 1000);
+        assertThat(signedArea(rings.get(1))).isEqualTo(-2L * 600 * 600);
+        assertThat(rings.get(0)).extracting(p -> p[0] + "," + p[1])
+                .containsExactlyInAnyOrder("0,0", "1000,0", "1000,1000", "0,1000");
+    }
+
+    @Test
+    void keepsTheCursorAcrossParts() {
+        MvtEncoder encoder = new MvtEncoder("t");
+        encoder.addPolygonFeature(1, geometryFactory.createMultiPolygon(new Polygon[] {
+                square(10, 10, 20, 20), square(3000, 3000, 3100, 3100)}), Map.of());
+
+        List<List<int[]>> rings = Layer.decode(encoder.encode()).features.get(0).rings();
+
+        assertThat(rings).hasSize(2);
+        assertThat(rings.get(1)).extracting(p -> p[0] + "," + p[1])
+                .containsExactlyInAnyOrder("3000,3000", "3100,3000", "3100,3100", "3000,3100");
+    }
+
+    @Test
+    void dropsRingsThatCollapseOnTheGrid() {
+        MvtEncoder encoder = new MvtEncoder("t");
+        encoder.addPolygonFeature(1, square(10.1, 10.1, 10.3, 10.3), Map.of());
+
+        assertThat(encoder.isEmpty()).isTrue();
+        assertThat(Layer.decode(encoder.encode()).features).isEmpty();
+    }
+
+    private Polygon square(double minX, double minY, double maxX, double maxY) {
+        return geometryFactory.createPolygon(ring(minX, minY, maxX, minY, maxX, maxY, minX, maxY, minX, minY));
+    }
+
+    private LinearRing ring(double... xy) {
+        Coordinate[] coordinates = new Coordinate[xy.length / 2];
+        for (int i = 0; i < coordinates.length; i++) {
+            coordinates[i] = new Coordinate(xy[2 * i], xy[2 * i + 1]);
+        }
+        return geometryFactory.createLinearRing(coordinates);
+    }
+
+    private static long signedArea(List<int[]> ring) {
+        long doubled = 0;
+        for (int i = 0; i < ring.size(); i++) {
+            int[] a = ring.get(i);
+            int[] b = ring.get((i + 1) % ring.size());
+            doubled += (long) a[0] * b[1] - (long) b[0] * a[1];
+        }
+        return doubled;
+    }
+
+    // Just enough of a protobuf and MVT reader to check what the encoder wrote
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+        private final int end;
+
+        Reader(byte[] data, int start, int end) {
+            this.data = data;
+            this.position = start;
+            this.end = end;
+        }
+
+        boolean hasMore() {
+            return position < end;
+        }
+
+        long varint() {
+            long value = 0;
+            int shift = 0;
+            while (true) {
+                byte b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+                shift += 7;
+            }
+        }
+
+        long fixed64() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value |= (long) (data[position++] & 0xFF) << (8 * i);
+            }
+            return value;
+        }
+
+        Reader message() {
+            int length = (int) varint();
+            Reader nested = new Reader(data, position, position + length);
+            position += length;
+            return nested;
+        }
+
+        String string() {
+            int length = (int) varint();
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+
+    private static final class Layer {
+        long version;
+        String name;
+        long extent;
+        final List<Feature> features = new ArrayList<>();
+        final List<String> keys = new ArrayList<>();
+        final List<Object> values = new ArrayList<>();
+
+        static Layer decode(byte[] tile) {
+            Reader tileReader = new Reader(tile, 0, tile.length);
+            assertThat(tileReader.varint()).isEqualTo((3 << 3) | 2);
+            Reader reader = tileReader.message();
+            Layer layer = new Layer();
+            while (reader.hasMore()) {
+                long key = reader.varint();
+                switch ((int) (key >>> 3)) {
+                    case 15 -> layer.version = reader.varint();
+                    case 1 -> layer.name = reader.string();
+                    case 2 -> layer.features.add(Feature.decode(reader.message()));
+                    case 3 -> layer.keys.add(reader.string());
+                    case 4 -> layer.values.add(value(reader.message()));
+                    case 5 -> layer.extent = reader.varint();
+                    default -> throw new AssertionError("Unexpected layer field " + (key >>> 3));
+                }
+            }
+            return layer;
+        }
+
+        Map<String, Object> properties(Feature feature) {
+            Map<String, Object> properties = new LinkedHashMap<>();
+            for (int i = 0; i < feature.tags.size(); i += 2) {
+                properties.put(keys.get(feature.tags.get(i)), values.get(feature.tags.get(i + 1)));
+            }
+            return properties;
+        }
+
+        private static Object value(Reader reader) {
+            long key = reader.varint();
+            return switch ((int) (key >>> 3)) {
+                case 1 -> reader.string();
+                case 3 -> Double.longBitsToDouble(reader.fixed64());
+                case 4 -> reader.varint();
+                default -> throw new AssertionError("Unexpected value field " + (key >>> 3));
+            };
+        }
+    }
+
+    private static final class Feature {
+        long id;
+        long type;
+        final List<Integer> tags = new ArrayList<>();
+        final List<Long> geometry = new ArrayList<>();
+
+        static Feature decode(Reader reader) {
+            Feature feature = new Feature();
+            while (reader.hasMore()) {
+                long key = reader.varint();
+                switch ((int) (key >>> 3)) {
+                    case 1 -> feature.id = reader.varint();
+                    case 2 -> {
+                        Reader packed = reader.message();
+                        while (packed.hasMore()) {
+                            feature.tags.add((int) packed.varint());
+                        }
+                    }
+                    case 3 -> feature.type = reader.varint();
+                    case 4 -> {
+                        Reader packed = reader.message();
+                        while (packed.hasMore()) {
+                            feature.geometry.add(packed.varint());
+                        }
+                    }
+                    default -> throw new AssertionError("Unexpected feature field " + (key >>> 3));
+                }
+            }
+            return feature;
+        }
+
+        // Replays the MoveTo / LineTo / ClosePath commands into rings of absolute points
+        List<List<int[]>> rings() {
+            List<List<int[]>> rings = new ArrayList<>();
+            List<int[]> current = null;
+            int x = 0;
+            int y = 0;
+            int i = 0;
+            while (i < geometry.size()) {
+                int command = (int) (long) geometry.get(i++);
+                int id = command & 0x7;
+                int count = command >>> 3;
+                if (id == 7) {
+                    rings.add(current);
+                    continue;
+                }
+                for (int n = 0; n < count; n++) {
+                    x += unZigZag(geometry.get(i++));
+                    y += unZigZag(geometry.get(i++));
+                    if (id == 1) {
+                        current = new ArrayList<>();
+                    }
+                    current.add(new int[] {x, y});
+                }
+            }
+            return rings;
+        }
+
+        private static int unZigZag(long value) {
+            return (int) ((value >>> 1) ^ -(value & 1));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.athlos.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderStatisticTreeTest {
+
+    @Test
+    void ranksAndSelectsLikeASortedList() {
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.naturalOrder());
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 5000; i++) {
+            int value = random.nextInt(2000);
+            if (random.nextInt(3) == 0) {
+                assertThat(tree.remove(value)).isEqualTo(expected.remove(value));
+            } else {
+                assertThat(tree.add(value)).isEqualTo(expected.add(value));
+            }
+        }
+
+        List<Integer> sorted = new ArrayList<>(expected);
+        assertThat(tree.size()).isEqualTo(sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            assertThat(tree.get(i)).isEqualTo(sorted.get(i));
+            assertThat(tree.rankOf(sorted.get(i))).isEqualTo(i);
+        }
+        assertThat(tree.head(10)).isEqualTo(sorted.subList(0, 10));
+    }
+
+    @Test
+    void reportsMissingValuesAndRejectsDuplicates() {
+        OrderStatisticTree<String> tree = new OrderStatisticTree<>(Comparator.naturalOrder());
+        tree.add("b");
+        tree.add("a");
+
+        assertThat(tree.add("a")).isFalse();
+        assertThat(tree.rankOf("c")).isEqualTo(-1);
+        assertThat(tree.contains("b")).isTrue();
+        assertThat(tree.remove("c")).isFalse();
+        assertThat(tree.head(5)).containsExactly("a", "b");
+    }
+
+    @Test
+    void ordersByTheComparatorNotByEquality() {
+        // Leaderboard style: highest score first, ties broken by id
+        Comparator<long[]> byScoreThenId = Comparator.<long[]>comparingLong(entry -> -entry[1])
+                .thenComparingLong(entry -> entry[0]);
+        OrderStatisticTree<long[]> tree = new OrderStatisticTree<>(byScoreThenId);
+        long[] first = {7, 900};
+        long[] tiedLowId = {2, 500};
+        long[] tiedHighId = {9, 500};
+        tree.add(tiedHighId);
+        tree.add(first);
+        tree.add(tiedLowId);
+
+        assertThat(tree.rankOf(new long[] {2, 500})).isEqualTo(1);
+        assertThat(tree.get(0)).isSameAs(first);
+        assertThat(tree.get(2)).isSameAs(tiedHighId);
+    }
+
+    @Test
+    void rejectsIndexesOutOfBounds() {
+        OrderStatisticTree<Integer> tree = new OrderStatisticTree<>(Comparator.naturalOrder());
+        tree.add(1);
+
+        assertThatThrownBy(() -> tree.get(1)).isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> tree.get(-1)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+}
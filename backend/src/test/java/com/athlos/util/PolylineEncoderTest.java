@@ -0,0 +1,77 @@
+package com.athlos.util;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.impl.CoordinateArraySequence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class PolylineEncoderTest {
+
+    @Test
+    void matchesTheReferenceExample() {
+        // The worked example from the format's documentation; x is longitude, y latitude
+        CoordinateSequence points = new CoordinateArraySequence(new Coordinate[] {
+                new Coordinate(-120.2, 38.5), new Coordinate(-120.95, 40.7), new Coordinate(-126.453, 43.252)});
+
+        assertThat(PolylineEncoder.encode(points)).isEqualTo("_p~iF~ps|U_ulLnnqC_mqNvxq`@");
+    }
+
+    @Test
+    void roundTripsAtFiveDecimals() {
+        Random random = new Random(3);
+        Coordinate[] coordinates = new Coordinate[300];
+        double lat = -33.86;
+        double lon = 151.2;
+        for (int i = 0; i < coordinates.length; i++) {
+            lat += (random.nextDouble() - 0.5) * 0.001;
+            lon += (random.nextDouble() - 0.5) * 0.001;
+            coordinates[i] = new Coordinate(lon, lat);
+        }
+
+        List<double[]> decoded = decode(PolylineEncoder.encode(new CoordinateArraySequence(coordinates)));
+
+        assertThat(decoded).hasSize(coordinates.length);
+        for (int i = 0; i < coordinates.length; i++) {
+            assertThat(decoded.get(i)[0]).isCloseTo(coordinates[i].y, within(0.5e-5));
+            assertThat(decoded.get(i)[1]).isCloseTo(coordinates[i].x, within(0.5e-5));
+        }
+    }
+
+    @Test
+    void encodesAnEmptySequenceAsAnEmptyString() {
+        assertThat(PolylineEncoder.encode(new CoordinateArraySequence(0))).isEmpty();
+    }
+
+    // {lat, lon} pairs
+    private static List<double[]> decode(String encoded) {
+        List<double[]> points = new ArrayList<>();
+        int index = 0;
+        long lat = 0;
+        long lon = 0;
+        while (index < encoded.length()) {
+            long[] value = new long[2];
+            for (int k = 0; k < 2; k++) {
+                long result = 0;
+                int shift = 0;
+                int b;
+                do {
+                    b = encoded.charAt(index++) - 63;
+                    result |= (long) (b & 0x1f) << shift;
+                    shift += 5;
+                } while (b >= 0x20);
+                value[k] = (result & 1) != 0 ? ~(result >> 1) : result >> 1;
+            }
+            lat += value[0];
+            lon += value[1];
+            points.add(new double[] {lat / 1e5, lon / 1e5});
+        }
+        return points;
+    }
+}
@@ -0,0 +1,98 @@
+package com.athlos.util;
+
+import com.athlos.entity.RunPoint;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class RunPointCodecTest {
+
+    private final GeometryFactory geometryFactory = new GeometryFactory();
+
+    @Test
+    void roundTripsCoordinatesTimestampsStepsAndSpeeds() {
+        Random random = new Random(17);
+        LocalDateTime time = LocalDateTime.of(2024, 3, 31, 23, 59, 58, 123_000_000);
+        double lat = 52.3702157;
+        double lon = 4.8951679;
+        List<RunPoint> points = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            RunPoint point = point(lat, lon, time);
+            point.setStepCount(i % 7 == 0 ? null : random.nextInt(5000));
+            point.setSpeedMps(i % 5 == 0 ? null : random.nextDouble() * 6);
+            points.add(point);
+            lat += (random.nextDouble() - 0.5) * 1e-4;
+            lon += (random.nextDouble() - 0.5) * 1e-4;
+            time = time.plusNanos(random.nextInt(3000) * 1_000_000L);
+        }
+
+        byte[] encoded = RunPointCodec.encode(points);
+        List<RunPoint> decoded = RunPointCodec.decode(encoded, geometryFactory);
+
+        assertThat(decoded).hasSize(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            RunPoint expected = points.get(i);
+            RunPoint actual = decoded.get(i);
+            assertThat(actual.getLocation().getY()).isCloseTo(expected.getLocation().getY(), within(1e-7));
+            assertThat(actual.getLocation().getX()).isCloseTo(expected.getLocation().getX(), within(1e-7));
+            assertThat(actual.getTimestamp()).isEqualTo(expected.getTimestamp());
+            assertThat(actual.getStepCount()).isEqualTo(expected.getStepCount());
+            if (expected.getSpeedMps() == null) {
+                assertThat(actual.getSpeedMps()).isNull();
+            } else {
+                assertThat(actual.getSpeedMps()).isCloseTo(expected.getSpeedMps(), within(0.0005));
+            }
+        }
+        assertThat(encoded.length).isLessThan(points.size() * 16);
+    }
+
+    @Test
+    void keepsZeroStepsDistinctFromNull() {
+        RunPoint zero = point(0, 0, LocalDateTime.of(2024, 1, 1, 0, 0));
+        zero.setStepCount(0);
+        RunPoint missing = point(0, 0, LocalDateTime.of(2024, 1, 1, 0, 0, 1));
+
+        List<RunPoint> decoded = RunPointCodec.decode(RunPointCodec.encode(List.of(zero, missing)), geometryFactory);
+
+        assertThat(decoded.get(0).getStepCount()).isZero();
+        assertThat(decoded.get(1).getStepCount()).isNull();
+    }
+
+    @Test
+    void handlesNegativeCoordinatesAndTimesBeforeTheEpoch() {
+        RunPoint point = point(-33.8688197, -151.2092955, LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_000_000));
+
+        RunPoint decoded = RunPointCodec.decode(RunPointCodec.encode(List.of(point)), geometryFactory).get(0);
+
+        assertThat(decoded.getLocation().getY()).isCloseTo(-33.8688197, within(1e-7));
+        assertThat(decoded.getLocation().getX()).isCloseTo(-151.2092955, within(1e-7));
+        assertThat(decoded.getTimestamp()).isEqualTo(point.getTimestamp());
+    }
+
+    @Test
+    void encodesAnEmptyRun() {
+        assertThat(RunPointCodec.decode(RunPointCodec.encode(List.of()), geometryFactory)).isEmpty();
+    }
+
+    @Test
+    void rejectsNegativeStepCounts() {
+        RunPoint point = point(0, 0, LocalDateTime.of(2024, 1, 1, 0, 0));
+        point.setStepCount(-3);
+
+        assertThatThrownBy(() -> RunPointCodec.encode(List.of(point)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private RunPoint point(double lat, double lon, LocalDateTime time) {
+        return new RunPoint(null, geometryFactory.createPoint(new Coordinate(lon, lat)), time);
+    }
+}
@@ -23,9 +23,49 @@ export interface Run {
   distanceMeters?: number;
   path?: Point[];
   claimedTerritory?: Point[];
+  pathPolyline?: string;
+  claimedTerritoryPolyline?: string;
   isActive: boolean;
 }
 
+export interface RunSummary {
+  id: number;
+  userId: number;
+  startTime: string;
+  endTime?: string;
+  durationSeconds?: number;
+  totalSteps?: number;
+  distanceMeters?: number;
+  paceSecondsPerKm?: number;
+  isActive: boolean;
+}
+
+export interface UserSearchPage {
+  users: User[];
+  nextCursor?: string;
+}
+
+export interface RunPage {
+  runs: RunSummary[];
+  nextCursor?: string;
+}
+
+export interface RunPath {
+  runId: number;
+  format: 'points' | 'polyline';
+  totalPoints: number;
+  returnedPoints: number;
+  points?: Point[];
+  polyline?: string;
+}
+
+export interface RunPointAck {
+  runId: number;
+  accepted: number;
+  totalSteps?: number;
+  distanceMeters?: number;
+}
+
 export interface Point {
   latitude: number;
   longitude: number;
@@ -129,8 +169,12 @@ class ApiService {
     });
   }
 
-  async searchUsers(query: string): Promise<User[]> {
-    return this.request<User[]>(`/users/search?q=${encodeURIComponent(query)}`);
+  async searchUsers(query: string, cursor?: string, limit = 20): Promise<UserSearchPage> {
+    const params = new URLSearchParams({ q: query, limit: String(limit) });
+    if (cursor) {
+      params.set('cursor', cursor);
+    }
+    return this.request<UserSearchPage>(`/users/search?${params}`);
   }
 
   // Run endpoints
@@ -159,15 +203,27 @@ class ApiService {
     });
   }
 
-  async addRunPoint(runId: number, latitude: number, longitude: number, stepCount?: number): Promise<Run> {
-    return this.request<Run>(`/runs/${runId}/point`, {
+  async addRunPoint(runId: number, latitude: number, longitude: number, stepCount?: number): Promise<RunPointAck> {
+    return this.request<RunPointAck>(`/runs/${runId}/point`, {
       method: 'POST',
       body: JSON.stringify({ latitude, longitude, stepCount }),
     });
   }
 
-  async getUserRuns(userId: number): Promise<Run[]> {
-    return this.request<Run[]>(`/runs/user/${userId}`);
+  async getUserRuns(userId: number, cursor?: string, limit = 20): Promise<RunPage> {
+    const params = new URLSearchParams({ limit: String(limit) });
+    if (cursor) {
+      params.set('cursor', cursor);
+    }
+    return this.request<RunPage>(`/runs/user/${userId}?${params}`);
+  }
+
+  async getRunPath(runId: number, format: 'points' | 'polyline' = 'points', maxPoints?: number): Promise<RunPath> {
+    const params = new URLSearchParams({ pathFormat: format });
+    if (maxPoints) {
+      params.set('maxPoints', String(maxPoints));
+    }
+    return this.request<RunPath>(`/runs/${runId}/path?${params}`);
   }
 
   async getActiveRun(userId: number): Promise<Run | null> {
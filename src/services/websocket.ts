@@ -11,6 +11,22 @@ export interface LeaderboardEntry {
   territoriesClaimed?: number;
 }
 
+export type LeaderboardPeriod = 'daily' | 'weekly' | 'all-time';
+
+interface LeaderboardSnapshot {
+  period: LeaderboardPeriod;
+  version: number;
+  entries: LeaderboardEntry[];
+}
+
+interface LeaderboardDelta {
+  period: LeaderboardPeriod;
+  baseVersion: number;
+  version: number;
+  upserts: LeaderboardEntry[];
+  removedUserIds: number[];
+}
+
 class WebSocketService {
   private stompClient: any = null;
   private isConnected = false;
@@ -40,49 +56,76 @@ class WebSocketService {
     }
   }
 
-  subscribeToDailyLeaderboard(callback: (data: LeaderboardEntry[]) => void) {
-    if (this.stompClient && this.isConnected) {
-      this.stompClient.subscribe('/topic/leaderboard/daily', (message: any) => {
-        const data = JSON.parse(message.body);
-        callback(data);
-      });
+  // Loads the board from a snapshot sent to this client only, then keeps it current from the
+  // deltas broadcast on /topic/leaderboard.{period}.deltas; the callback gets the whole board
+  subscribeToLeaderboard(period: LeaderboardPeriod, callback: (data: LeaderboardEntry[]) => void) {
+    if (!this.stompClient || !this.isConnected) {
+      return;
     }
-  }
+    let board: Map<number, LeaderboardEntry> | null = null;
+    let version = 0;
+    // Deltas that arrive while the snapshot is on its way
+    let pending: LeaderboardDelta[] = [];
 
-  subscribeToWeeklyLeaderboard(callback: (data: LeaderboardEntry[]) => void) {
-    if (this.stompClient && this.isConnected) {
-      this.stompClient.subscribe('/topic/leaderboard/weekly', (message: any) => {
-        const data = JSON.parse(message.body);
-        callback(data);
-      });
-    }
-  }
+    const publish = () => {
+      callback(Array.from(board!.values()).sort((a, b) => a.rank - b.rank || a.userId - b.userId));
+    };
 
-  subscribeToAllTimeLeaderboard(callback: (data: LeaderboardEntry[]) => void) {
-    if (this.stompClient && this.isConnected) {
-      this.stompClient.subscribe('/topic/leaderboard/all-time', (message: any) => {
-        const data = JSON.parse(message.body);
-        callback(data);
+    // False when the delta does not follow the board's version and a new snapshot is needed
+    const apply = (delta: LeaderboardDelta): boolean => {
+      if (delta.version <= version) {
+        return true;
+      }
+      if (delta.baseVersion !== version) {
+        return false;
+      }
+      delta.removedUserIds.forEach((userId) => board!.delete(userId));
+      delta.upserts.forEach((entry) => board!.set(entry.userId, entry));
+      version = delta.version;
+      return true;
+    };
+
+    const loadSnapshot = () => {
+      board = null;
+      const subscription = this.stompClient.subscribe(`/app/leaderboard.${period}`, (message: any) => {
+        subscription.unsubscribe();
+        const snapshot: LeaderboardSnapshot = JSON.parse(message.body);
+        board = new Map(snapshot.entries.map((entry) => [entry.userId, entry]));
+        version = snapshot.version;
+        const queued = pending;
+        pending = [];
+        if (!queued.every(apply)) {
+          loadSnapshot();
+          return;
+        }
+        publish();
       });
-    }
+    };
+
+    // Subscribed before the snapshot is requested, so no delta published in between is missed
+    this.stompClient.subscribe(`/topic/leaderboard.${period}.deltas`, (message: any) => {
+      const delta: LeaderboardDelta = JSON.parse(message.body);
+      if (board === null) {
+        pending.push(delta);
+      } else if (apply(delta)) {
+        publish();
+      } else {
+        loadSnapshot();
+      }
+    });
+    loadSnapshot();
   }
 
-  requestDailyLeaderboard() {
-    if (this.stompClient && this.isConnected) {
-      this.stompClient.send('/app/leaderboard/daily', {}, '');
-    }
+  subscribeToDailyLeaderboard(callback: (data: LeaderboardEntry[]) => void) {
+    this.subscribeToLeaderboard('daily', callback);
   }
 
-  requestWeeklyLeaderboard() {
-    if (this.stompClient && this.isConnected) {
-      this.stompClient.send('/app/leaderboard/weekly', {}, '');
-    }
+  subscribeToWeeklyLeaderboard(callback: (data: LeaderboardEntry[]) => void) {
+    this.subscribeToLeaderboard('weekly', callback);
   }
 
-  requestAllTimeLeaderboard() {
-    if (this.stompClient && this.isConnected) {
-      this.stompClient.send('/app/leaderboard/all-time', {}, '');
-    }
+  subscribeToAllTimeLeaderboard(callback: (data: LeaderboardEntry[]) => void) {
+    this.subscribeToLeaderboard('all-time', callback);
   }
 }
 